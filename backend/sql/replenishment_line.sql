@@ -0,0 +1,22 @@
+-- ----------------------------
+-- 补货明细，每条补货通知下按库房物品记录预测需求、再订货点与建议补货量
+-- ----------------------------
+CREATE TABLE IF NOT EXISTS `replenishment_line` (
+  `id` int(11) NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `replenishment_id` int(11) NOT NULL COMMENT '补货通知ID',
+  `stock_row_id` int(11) NOT NULL COMMENT '库房数据ID（stock_info.is_in = 0）',
+  `name` varchar(255) DEFAULT NULL COMMENT '物品名称',
+  `type_id` int(11) DEFAULT NULL COMMENT '物品类型ID',
+  `model` varchar(255) DEFAULT NULL COMMENT '型号',
+  `unit` varchar(50) DEFAULT NULL COMMENT '单位',
+  `price` decimal(10, 2) DEFAULT NULL COMMENT '单价',
+  `on_hand` int(11) NOT NULL DEFAULT 0 COMMENT '评估时库存',
+  `forecast_demand` decimal(12, 1) NOT NULL DEFAULT 0.0 COMMENT '提前期内预测需求',
+  `safety_stock` decimal(12, 1) NOT NULL DEFAULT 0.0 COMMENT '安全库存',
+  `reorder_point` decimal(12, 1) NOT NULL DEFAULT 0.0 COMMENT '再订货点',
+  `quantity` int(11) NOT NULL DEFAULT 0 COMMENT '建议补货数量',
+  `lead_time` int(11) NOT NULL COMMENT '提前期（天）',
+  `create_date` varchar(50) DEFAULT NULL COMMENT '评估时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_replenishment` (`replenishment_id`, `stock_row_id`)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '补货明细';
@@ -0,0 +1,33 @@
+-- ----------------------------
+-- 每日出入库汇总，按 (日期, 库房数据ID, 物品类型, 方向) 累计明细条数、数量与金额
+-- ----------------------------
+CREATE TABLE IF NOT EXISTS `stock_daily_rollup` (
+  `day` date NOT NULL COMMENT '日期',
+  `stock_row_id` int(11) NOT NULL COMMENT '库房数据ID（stock_info.is_in = 0）',
+  `type_id` int(11) NOT NULL DEFAULT 0 COMMENT '物品类型ID',
+  `direction` tinyint(4) NOT NULL COMMENT '方向 1.入库 2.出库',
+  `records` int(11) NOT NULL DEFAULT 0 COMMENT '明细条数',
+  `quantity` int(11) NOT NULL DEFAULT 0 COMMENT '数量',
+  `value` decimal(16, 2) NOT NULL DEFAULT 0.00 COMMENT '金额',
+  PRIMARY KEY (`day`, `stock_row_id`, `type_id`, `direction`),
+  KEY `idx_direction_day` (`direction`, `day`),
+  KEY `idx_stock_row_day` (`stock_row_id`, `day`)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '每日出入库汇总';
+
+-- 已建表时补充明细条数列
+-- ALTER TABLE `stock_daily_rollup` ADD COLUMN `records` int(11) NOT NULL DEFAULT 0 COMMENT '明细条数' AFTER `direction`;
+
+-- 初始化历史数据
+DELETE FROM `stock_daily_rollup`;
+INSERT INTO `stock_daily_rollup` (`day`, `stock_row_id`, `type_id`, `direction`, `records`, `quantity`, `value`)
+SELECT
+  DATE(si.create_date),
+  si.parent_id,
+  IFNULL(si.type_id, 0),
+  si.is_in,
+  COUNT(1),
+  SUM(si.amount),
+  IFNULL(SUM(si.amount * si.price), 0)
+FROM stock_info si
+WHERE si.is_in IN (1, 2) AND si.parent_id IS NOT NULL
+GROUP BY DATE(si.create_date), si.parent_id, IFNULL(si.type_id, 0), si.is_in;
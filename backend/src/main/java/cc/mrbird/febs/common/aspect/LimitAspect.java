@@ -5,6 +5,7 @@ import cc.mrbird.febs.common.domain.LimitType;
 import cc.mrbird.febs.common.exception.LimitAccessException;
 import cc.mrbird.febs.common.utils.IPUtil;
 import com.google.common.collect.ImmutableList;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -13,32 +14,71 @@ import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletRequest;
 import java.io.Serializable;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
  * 接口限流
+ * 每个 key 在本地按固定时间窗计数，大部分请求直接在本地判定；
+ * 本地未同步的次数攒到一定数量或由定时任务累加到 Redis，并取回集群总数
  */
 @Slf4j
 @Aspect
 @Component
 public class LimitAspect {
 
+    /**
+     * 限流脚本
+     * 将本地新增次数累加到当前时间窗，首次写入时设置过期时间，返回集群总数
+     */
+    private static final RedisScript<Number> SYNC_SCRIPT = new DefaultRedisScript<>(
+            "local c = redis.call('incrby', KEYS[1], ARGV[1])" +
+                    "\nif tonumber(c) == tonumber(ARGV[1]) then" +
+                    "\nredis.call('expire', KEYS[1], ARGV[2])" +
+                    "\nend" +
+                    "\nreturn c;", Number.class);
+
+    /**
+     * 本地最多累计多少次未同步的访问，占访问上限的比例
+     */
+    private static final int SYNC_RATIO = 10;
+
     private final RedisTemplate<String, Serializable> limitRedisTemplate;
 
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Window> windowMap = new ConcurrentHashMap<>();
+
     @Autowired
-    public LimitAspect(RedisTemplate<String, Serializable> limitRedisTemplate) {
+    public LimitAspect(RedisTemplate<String, Serializable> limitRedisTemplate, MeterRegistry meterRegistry) {
         this.limitRedisTemplate = limitRedisTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            limitRedisTemplate.execute((RedisCallback<String>) connection ->
+                    connection.scriptLoad(SYNC_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            log.warn("预加载限流脚本失败，首次调用时再加载", e);
+        }
     }
 
     @Pointcut("@annotation(cc.mrbird.febs.common.annotation.Limit)")
@@ -54,7 +94,6 @@ public class LimitAspect {
         Method method = signature.getMethod();
         Limit limitAnnotation = method.getAnnotation(Limit.class);
         LimitType limitType = limitAnnotation.limitType();
-        String name = limitAnnotation.name();
         String key;
         String ip = IPUtil.getIpAddr(request);
         int limitPeriod = limitAnnotation.period();
@@ -69,12 +108,11 @@ public class LimitAspect {
             default:
                 key = StringUtils.upperCase(method.getName());
         }
-        ImmutableList<String> keys = ImmutableList.of(StringUtils.join(limitAnnotation.prefix() + "_", key, ip));
-        String luaScript = buildLuaScript();
-        RedisScript<Number> redisScript = new DefaultRedisScript<>(luaScript, Number.class);
-        Number count = limitRedisTemplate.execute(redisScript, keys, limitCount, limitPeriod);
-        log.info("IP:{} 第 {} 次访问key为 {}，描述为 [{}] 的接口", ip, count, keys, name);
-        if (count != null && count.intValue() <= limitCount) {
+        String limitKey = StringUtils.join(limitAnnotation.prefix() + "_", key, ip);
+        Window window = windowMap.computeIfAbsent(limitKey, k -> new Window(k, limitCount, limitPeriod));
+        boolean allowed = window.tryAcquire(this);
+        meterRegistry.counter("limit.requests", "method", method.getName(), "result", allowed ? "allowed" : "rejected").increment();
+        if (allowed) {
             return point.proceed();
         } else {
             throw new LimitAccessException("接口访问超出频率限制");
@@ -82,22 +120,156 @@ public class LimitAspect {
     }
 
     /**
-     * 限流脚本
-     * 调用的时候不超过阈值，则直接返回并执行计算器自加。
+     * 定时将各 key 未同步的访问次数累加到 Redis，并清理已过期的时间窗
+     */
+    @Scheduled(fixedDelay = 200)
+    public void sync() {
+        long now = System.currentTimeMillis();
+        windowMap.values().forEach(window -> {
+            if (window.expired(now)) {
+                windowMap.remove(window.key, window);
+            } else {
+                window.flush(this);
+            }
+        });
+    }
+
+    /**
+     * 累加访问次数到 Redis 当前时间窗
      *
-     * @return lua脚本
+     * @param key      限流 key
+     * @param windowId 时间窗编号
+     * @param delta    新增次数
+     * @param period   时间窗长度，单位秒
+     * @return 集群内当前时间窗的访问总数，失败时返回 null
      */
-    private String buildLuaScript() {
-        return "local c" +
-                "\nc = redis.call('get',KEYS[1])" +
-                "\nif c and tonumber(c) > tonumber(ARGV[1]) then" +
-                "\nreturn c;" +
-                "\nend" +
-                "\nc = redis.call('incr',KEYS[1])" +
-                "\nif tonumber(c) == 1 then" +
-                "\nredis.call('expire',KEYS[1],ARGV[2])" +
-                "\nend" +
-                "\nreturn c;";
+    private Long incrementBy(String key, long windowId, int delta, int period) {
+        try {
+            Number count = limitRedisTemplate.execute(SYNC_SCRIPT, ImmutableList.of(key + ":" + windowId), delta, period);
+            return count == null ? null : count.longValue();
+        } catch (Exception e) {
+            log.warn("同步限流计数失败，key: {}", key, e);
+            meterRegistry.counter("limit.sync.failures").increment();
+            return null;
+        }
+    }
+
+    /**
+     * 单个 key 的本地时间窗，各 key 之间互不加锁
+     */
+    private static class Window {
+
+        private final String key;
+
+        private final int count;
+
+        private final int period;
+
+        private final int syncThreshold;
+
+        /**
+         * 当前时间窗编号
+         */
+        private long id;
+
+        /**
+         * 上次同步时取回的集群总数
+         */
+        private long global;
+
+        /**
+         * 本地尚未同步的访问次数
+         */
+        private int unsynced;
+
+        /**
+         * 上次同步后是否有访问
+         */
+        private boolean touched;
+
+        /**
+         * 是否有同步在途
+         */
+        private boolean syncing;
+
+        private Window(String key, int count, int period) {
+            this.key = key;
+            this.count = count;
+            this.period = period;
+            this.syncThreshold = Math.max(1, count / SYNC_RATIO);
+            this.id = windowId(System.currentTimeMillis());
+        }
+
+        private boolean tryAcquire(LimitAspect aspect) {
+            boolean full;
+            synchronized (this) {
+                roll(System.currentTimeMillis());
+                touched = true;
+                if (global + unsynced >= count) {
+                    return false;
+                }
+                unsynced++;
+                full = unsynced >= syncThreshold;
+            }
+            if (full) {
+                sync(aspect);
+            }
+            return true;
+        }
+
+        private void flush(LimitAspect aspect) {
+            synchronized (this) {
+                roll(System.currentTimeMillis());
+                if (!touched) {
+                    return;
+                }
+                touched = false;
+            }
+            sync(aspect);
+        }
+
+        private synchronized boolean expired(long now) {
+            return !syncing && unsynced == 0 && windowId(now) != id;
+        }
+
+        /**
+         * 锁内取出未同步次数，锁外访问 Redis，再在锁内合并结果，
+         * 同一 key 同时只有一个同步在途，其余调用直接返回，由在途同步或下次同步带上
+         */
+        private void sync(LimitAspect aspect) {
+            long windowId;
+            int delta;
+            synchronized (this) {
+                if (syncing) {
+                    return;
+                }
+                syncing = true;
+                windowId = id;
+                delta = unsynced;
+            }
+            Long total = aspect.incrementBy(key, windowId, delta, period);
+            synchronized (this) {
+                syncing = false;
+                // 同步期间时间窗已滚动时，本地计数已清零，结果属于上一个时间窗
+                if (total != null && windowId == id) {
+                    global = total;
+                    unsynced -= delta;
+                }
+            }
+        }
+
+        private void roll(long now) {
+            long current = windowId(now);
+            if (current != id) {
+                id = current;
+                global = 0;
+                unsynced = 0;
+            }
+        }
+
+        private long windowId(long now) {
+            return now / (period * 1000L);
+        }
     }
 
 }
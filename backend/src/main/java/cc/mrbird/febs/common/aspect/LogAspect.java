@@ -5,7 +5,7 @@ import cc.mrbird.febs.common.properties.FebsProperties;
 import cc.mrbird.febs.common.utils.HttpContextUtil;
 import cc.mrbird.febs.common.utils.IPUtil;
 import cc.mrbird.febs.system.domain.SysLog;
-import cc.mrbird.febs.system.service.LogService;
+import cc.mrbird.febs.system.manager.LogWriter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.shiro.SecurityUtils;
@@ -17,6 +17,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.Date;
 
 /**
  * AOP 记录用户操作日志
@@ -33,7 +34,7 @@ public class LogAspect {
     private FebsProperties febsProperties;
 
     @Autowired
-    private LogService logService;
+    private LogWriter logWriter;
 
     @Pointcut("@annotation(cc.mrbird.febs.common.annotation.Log)")
     public void pointcut() {
@@ -64,7 +65,8 @@ public class LogAspect {
             log.setUsername(username);
             log.setIp(ip);
             log.setTime(time);
-            logService.saveLog(point, log);
+            log.setCreateTime(new Date());
+            logWriter.offer(point, log);
         }
         return result;
     }
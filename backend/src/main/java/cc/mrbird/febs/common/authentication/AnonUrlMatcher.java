@@ -0,0 +1,97 @@
+package cc.mrbird.febs.common.authentication;
+
+import cc.mrbird.febs.common.properties.ShiroProperties;
+import com.baomidou.mybatisplus.core.toolkit.StringPool;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 免认证 URL匹配器，anonUrl预先编译为精确路径集合与 /** 前缀集合，
+ * 仅含其他通配符的规则才交给 AntPathMatcher。anonUrl变更后在下一次匹配时重新编译
+ */
+public class AnonUrlMatcher {
+
+    private static final String ANY_SUFFIX = "/**";
+
+    private final ShiroProperties shiroProperties;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private volatile Compiled compiled = new Compiled(null);
+
+    public AnonUrlMatcher(ShiroProperties shiroProperties) {
+        this.shiroProperties = shiroProperties;
+    }
+
+    /**
+     * 请求路径是否免认证
+     *
+     * @param uri 请求路径
+     * @return 是否匹配任一 anonUrl
+     */
+    public boolean match(String uri) {
+        Compiled current = compiled;
+        String anonUrl = shiroProperties.getAnonUrl();
+        if (current.source != anonUrl) {
+            current = new Compiled(anonUrl);
+            compiled = current;
+        }
+        if (current.exactSet.contains(uri)) {
+            return true;
+        }
+        // 按路径分隔符逐级检查 /** 前缀
+        if (!current.prefixSet.isEmpty()) {
+            for (int i = uri.indexOf('/'); i >= 0; i = uri.indexOf('/', i + 1)) {
+                if (current.prefixSet.contains(uri.substring(0, i))) {
+                    return true;
+                }
+            }
+            // 与 AntPathMatcher 一致，/foo/** 匹配 /foo 本身，/** 不匹配空路径
+            if (!uri.isEmpty() && current.prefixSet.contains(uri)) {
+                return true;
+            }
+        }
+        for (String pattern : current.patternList) {
+            if (pathMatcher.match(pattern, uri)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private class Compiled {
+
+        private final String source;
+
+        private final Set<String> exactSet = new HashSet<>();
+
+        private final Set<String> prefixSet = new HashSet<>();
+
+        private final List<String> patternList = new ArrayList<>();
+
+        private Compiled(String source) {
+            this.source = source;
+            if (source == null) {
+                return;
+            }
+            for (String url : StringUtils.splitByWholeSeparator(source, StringPool.COMMA)) {
+                String pattern = StringUtils.trim(url);
+                if (StringUtils.isEmpty(pattern)) {
+                    continue;
+                }
+                if (!pathMatcher.isPattern(pattern)) {
+                    exactSet.add(pattern);
+                } else if (pattern.endsWith(ANY_SUFFIX) && !pathMatcher.isPattern(StringUtils.removeEnd(pattern, ANY_SUFFIX))) {
+                    prefixSet.add(StringUtils.removeEnd(pattern, ANY_SUFFIX));
+                } else {
+                    patternList.add(pattern);
+                }
+            }
+        }
+    }
+}
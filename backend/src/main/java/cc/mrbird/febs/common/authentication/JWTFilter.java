@@ -3,14 +3,11 @@ package cc.mrbird.febs.common.authentication;
 import cc.mrbird.febs.common.properties.FebsProperties;
 import cc.mrbird.febs.common.utils.FebsUtil;
 import cc.mrbird.febs.common.utils.SpringContextUtil;
-import com.baomidou.mybatisplus.core.toolkit.StringPool;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.shiro.authz.UnauthorizedException;
 import org.apache.shiro.web.filter.authc.BasicHttpAuthenticationFilter;
 import org.apache.shiro.web.util.WebUtils;
 import org.springframework.http.HttpStatus;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.web.bind.annotation.RequestMethod;
 
 import javax.servlet.ServletRequest;
@@ -25,26 +22,26 @@ public class JWTFilter extends BasicHttpAuthenticationFilter {
 
     private static final String TOKEN = "Authentication";
 
-    private AntPathMatcher pathMatcher = new AntPathMatcher();
+    private volatile AnonUrlMatcher anonUrlMatcher;
 
     @Override
     protected boolean isAccessAllowed(ServletRequest request, ServletResponse response, Object mappedValue) throws UnauthorizedException {
         HttpServletRequest httpServletRequest = (HttpServletRequest) request;
-        FebsProperties febsProperties = SpringContextUtil.getBean(FebsProperties.class);
-        String[] anonUrl = StringUtils.splitByWholeSeparatorPreserveAllTokens(febsProperties.getShiro().getAnonUrl(), StringPool.COMMA);
-
-        boolean match = false;
-        for (String u : anonUrl) {
-            if (pathMatcher.match(u, httpServletRequest.getRequestURI()))
-                match = true;
-        }
-        if (match) return true;
+        if (getAnonUrlMatcher().match(httpServletRequest.getRequestURI())) return true;
         if (isLoginAttempt(request, response)) {
             return executeLogin(request, response);
         }
         return false;
     }
 
+    private AnonUrlMatcher getAnonUrlMatcher() {
+        if (anonUrlMatcher == null) {
+            // JWTFilter不由 Spring管理，首次请求时获取配置
+            anonUrlMatcher = new AnonUrlMatcher(SpringContextUtil.getBean(FebsProperties.class).getShiro());
+        }
+        return anonUrlMatcher;
+    }
+
     @Override
     protected boolean isLoginAttempt(ServletRequest request, ServletResponse response) {
         HttpServletRequest req = (HttpServletRequest) request;
@@ -32,6 +32,8 @@ public class ShiroRealm extends AuthorizingRealm {
     private RedisService redisService;
     @Autowired
     private UserManager userManager;
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
 
     @Override
     public boolean supports(AuthenticationToken token) {
@@ -76,6 +78,10 @@ public class ShiroRealm extends AuthorizingRealm {
         HttpServletRequest request = HttpContextUtil.getHttpServletRequest();
         String ip = IPUtil.getIpAddr(request);
 
+        // 已认证过且未被撤销的 token直接通过
+        if (verifiedTokenCache.get(token, ip) != null)
+            return new SimpleAuthenticationInfo(token, token, "febs_shiro_realm");
+
         String encryptToken = FebsUtil.encryptToken(token);
         String encryptTokenInRedis = null;
         try {
@@ -98,6 +104,7 @@ public class ShiroRealm extends AuthorizingRealm {
             throw new AuthenticationException("用户名或密码错误");
         if (!JWTUtil.verify(token, username, user.getPassword()))
             throw new AuthenticationException("token校验不通过");
+        verifiedTokenCache.put(token, ip, encryptToken, username);
         return new SimpleAuthenticationInfo(token, token, "febs_shiro_realm");
     }
 }
@@ -0,0 +1,115 @@
+package cc.mrbird.febs.common.authentication;
+
+import cc.mrbird.febs.common.domain.FebsConstant;
+import cc.mrbird.febs.common.properties.FebsProperties;
+import com.auth0.jwt.JWT;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已通过认证的 token本地缓存，命中时跳过 token加密、Redis查询与签名校验。
+ * 踢出、登出或用户信息变更时通过 TOKEN_REVOKE_CHANNEL 通知所有节点失效
+ */
+@Slf4j
+@Component
+public class VerifiedTokenCache {
+
+    // 撤销单个 token，消息内容为 token缓存 key（加密后的 token.ip）
+    public static final String REVOKE_TOKEN = "token:";
+    // 撤销用户的所有 token，消息内容为用户名
+    public static final String REVOKE_USER = "user:";
+
+    // 即使未收到撤销通知，缓存项最多保留的时间
+    private static final long MAX_HOLD_MINUTES = 5;
+
+    @Autowired
+    private FebsProperties properties;
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private Cache<String, VerifiedToken> tokenCache;
+
+    @PostConstruct
+    public void init() {
+        long holdSeconds = Math.min(properties.getShiro().getJwtTimeOut(), TimeUnit.MINUTES.toSeconds(MAX_HOLD_MINUTES));
+        tokenCache = CacheBuilder.newBuilder()
+                .maximumSize(10000)
+                .expireAfterWrite(holdSeconds, TimeUnit.SECONDS)
+                .build();
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> this.revoke(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(FebsConstant.TOKEN_REVOKE_CHANNEL));
+    }
+
+    /**
+     * 获取已认证 token对应的用户名
+     *
+     * @param token 解密后的 token
+     * @param ip    请求 ip
+     * @return 用户名，未命中或已过期时返回 null
+     */
+    public String get(String token, String ip) {
+        String key = token + "." + ip;
+        VerifiedToken verifiedToken = tokenCache.getIfPresent(key);
+        if (verifiedToken == null) {
+            return null;
+        }
+        if (verifiedToken.expireAt <= System.currentTimeMillis()) {
+            tokenCache.invalidate(key);
+            return null;
+        }
+        return verifiedToken.username;
+    }
+
+    /**
+     * 缓存已认证的 token
+     *
+     * @param token        解密后的 token
+     * @param ip           请求 ip
+     * @param encryptToken 加密后的 token
+     * @param username     用户名
+     */
+    public void put(String token, String ip, String encryptToken, String username) {
+        Date expiresAt = JWT.decode(token).getExpiresAt();
+        if (expiresAt == null) {
+            return;
+        }
+        tokenCache.put(token + "." + ip, new VerifiedToken(username, FebsConstant.TOKEN_CACHE_PREFIX + encryptToken + "." + ip, expiresAt.getTime()));
+    }
+
+    private void revoke(String message) {
+        if (StringUtils.startsWith(message, REVOKE_TOKEN)) {
+            String redisKey = FebsConstant.TOKEN_CACHE_PREFIX + StringUtils.removeStart(message, REVOKE_TOKEN);
+            tokenCache.asMap().values().removeIf(verifiedToken -> StringUtils.equalsIgnoreCase(verifiedToken.redisKey, redisKey));
+        } else if (StringUtils.startsWith(message, REVOKE_USER)) {
+            String username = StringUtils.removeStart(message, REVOKE_USER);
+            tokenCache.asMap().values().removeIf(verifiedToken -> StringUtils.equalsIgnoreCase(verifiedToken.username, username));
+        }
+    }
+
+    private static class VerifiedToken {
+
+        private final String username;
+
+        private final String redisKey;
+
+        private final long expireAt;
+
+        private VerifiedToken(String username, String redisKey, long expireAt) {
+            this.username = username;
+            this.redisKey = redisKey;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -15,9 +15,21 @@ public class FebsConstant {
     public static final String USER_CONFIG_CACHE_PREFIX = "febs.cache.user.config.";
     // token缓存前缀
     public static final String TOKEN_CACHE_PREFIX = "febs.cache.token.";
+    // user角色、权限缓存变更通知频道，消息内容为用户名
+    public static final String USER_AUTH_CHANNEL = "febs.channel.user.auth";
+    // 已认证 token撤销通知频道
+    public static final String TOKEN_REVOKE_CHANNEL = "febs.channel.token.revoke";
+    // 库房物品名称索引新增通知频道，消息内容为逗号分隔的库房数据ID
+    public static final String STOCK_INDEX_CHANNEL = "febs.channel.stock.index";
 
-    // 存储在线用户的 zset前缀
+    // 存储在线用户会话编号的 zset前缀，score 为过期时间
     public static final String ACTIVE_USERS_ZSET_PREFIX = "febs.user.active";
+    // 在线用户会话 hash前缀，key = 前缀 + 会话编号
+    public static final String ACTIVE_USER_SESSION_PREFIX = "febs.user.session.";
+    // 用户名对应在线会话编号的 set前缀，key = 前缀 + 用户名
+    public static final String ACTIVE_USER_NAME_PREFIX = "febs.user.session.name.";
+    // 系统访问统计计数器前缀
+    public static final String LOGIN_STAT_PREFIX = "febs.login.stat.";
 
     // 排序规则： descend 降序
     public static final String ORDER_DESC = "descend";
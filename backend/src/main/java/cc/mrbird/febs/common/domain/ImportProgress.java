@@ -0,0 +1,89 @@
+package cc.mrbird.febs.common.domain;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Excel 导入进度，逐块累计已处理行数与行级错误
+ */
+@Data
+public class ImportProgress implements Serializable {
+    private static final long serialVersionUID = -3507447185263716043L;
+
+    public static final String STATUS_QUEUED = "queued";
+    public static final String STATUS_RUNNING = "running";
+    public static final String STATUS_FINISHED = "finished";
+    public static final String STATUS_FAILED = "failed";
+
+    // 最多保留的错误信息条数
+    private static final int MAX_ERRORS = 200;
+
+    // 任务编号
+    private final String id = UUID.randomUUID().toString().replace("-", "");
+    // 任务状态
+    private volatile String status = STATUS_QUEUED;
+    // 结果信息
+    private volatile String message;
+    // 已处理行数
+    private final AtomicLong rows = new AtomicLong();
+    // 错误行数
+    private final AtomicLong errorCount = new AtomicLong();
+    // 错误信息（仅保留前 MAX_ERRORS 条）
+    private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+    // 开始时间
+    private volatile long startTime = System.currentTimeMillis();
+    // 结束时间
+    private volatile long endTime;
+
+    public void addRows(long count) {
+        rows.addAndGet(count);
+    }
+
+    public void addError(long row, String message) {
+        if (errorCount.incrementAndGet() <= MAX_ERRORS) {
+            errors.add("第" + row + "行：" + message);
+        }
+    }
+
+    public void start() {
+        startTime = System.currentTimeMillis();
+        status = STATUS_RUNNING;
+    }
+
+    public void finish(String status, String message) {
+        this.message = message;
+        this.endTime = System.currentTimeMillis();
+        this.status = status;
+    }
+
+    /**
+     * 每秒处理行数
+     */
+    public long getThroughput() {
+        long elapsed = Math.max((endTime > 0 ? endTime : System.currentTimeMillis()) - startTime, 1L);
+        return rows.get() * 1000L / elapsed;
+    }
+
+    /**
+     * 汇总的错误信息，无错误时返回 null
+     */
+    public String getErrorMessage() {
+        if (errorCount.get() == 0) {
+            return null;
+        }
+        StringBuilder message = new StringBuilder();
+        synchronized (errors) {
+            errors.forEach(error -> message.append(error).append("\n"));
+        }
+        if (errorCount.get() > MAX_ERRORS) {
+            message.append("……共").append(errorCount.get()).append("行错误");
+        }
+        return message.toString();
+    }
+}
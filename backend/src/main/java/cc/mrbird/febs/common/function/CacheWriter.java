@@ -0,0 +1,6 @@
+package cc.mrbird.febs.common.function;
+
+@FunctionalInterface
+public interface CacheWriter<T> {
+    void write(T t) throws Exception;
+}
@@ -0,0 +1,16 @@
+package cc.mrbird.febs.common.function;
+
+import cc.mrbird.febs.common.domain.ImportProgress;
+
+import java.util.Map;
+
+@FunctionalInterface
+public interface ChunkHandler<T> {
+    /**
+     * 处理一块导入数据
+     *
+     * @param chunk    Excel 行号与对应的数据
+     * @param progress 导入进度，用于记录行级错误
+     */
+    void handle(Map<Long, T> chunk, ImportProgress progress) throws Exception;
+}
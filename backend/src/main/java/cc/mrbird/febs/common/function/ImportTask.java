@@ -0,0 +1,18 @@
+package cc.mrbird.febs.common.function;
+
+import cc.mrbird.febs.common.domain.ImportProgress;
+
+import java.io.File;
+
+@FunctionalInterface
+public interface ImportTask {
+    /**
+     * 执行导入，文件由调用方在任务结束后删除。
+     * 传文件而不是输入流：POI 从文件打开 xlsx 时按需读取 zip 条目，从输入流打开则要整个读入内存
+     *
+     * @param file     导入文件
+     * @param progress 导入进度
+     * @return 错误信息，无错误时返回 null
+     */
+    String run(File file, ImportProgress progress) throws Exception;
+}
@@ -1,8 +1,6 @@
 package cc.mrbird.febs.common.function;
 
-import cc.mrbird.febs.common.exception.RedisConnectException;
-
 @FunctionalInterface
 public interface JedisExecutor<T, R> {
-    R excute(T t) throws RedisConnectException;
+    R excute(T t) throws Exception;
 }
@@ -0,0 +1,8 @@
+package cc.mrbird.febs.common.function;
+
+import redis.clients.jedis.Pipeline;
+
+@FunctionalInterface
+public interface PipelineExecutor<T> {
+    void excute(Pipeline pipeline, T t) throws Exception;
+}
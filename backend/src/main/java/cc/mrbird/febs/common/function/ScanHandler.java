@@ -0,0 +1,8 @@
+package cc.mrbird.febs.common.function;
+
+import java.util.List;
+
+@FunctionalInterface
+public interface ScanHandler {
+    void handle(List<String> keys) throws Exception;
+}
@@ -0,0 +1,101 @@
+package cc.mrbird.febs.common.handler;
+
+import cc.mrbird.febs.common.domain.ImportProgress;
+import cc.mrbird.febs.common.function.ChunkHandler;
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.poi.excel.sax.handler.RowHandler;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于 SAX 事件的 Excel 流式读取，按表头别名转换为实体后分块交给 ChunkHandler，
+ * 内存中只保留一块数据。第一行为标题，第二行为表头，第三行起为数据
+ */
+@Slf4j
+public class ChunkRowHandler<T> implements RowHandler {
+
+    private static final long HEADER_ROW_INDEX = 1;
+
+    private final Map<String, String> headerAlias;
+
+    private final Class<T> beanType;
+
+    private final int chunkSize;
+
+    private final ImportProgress progress;
+
+    private final ChunkHandler<T> chunkHandler;
+
+    private List<String> header = new ArrayList<>();
+
+    private Map<Long, T> chunk = new LinkedHashMap<>();
+
+    public ChunkRowHandler(Map<String, String> headerAlias, Class<T> beanType, int chunkSize,
+                           ImportProgress progress, ChunkHandler<T> chunkHandler) {
+        this.headerAlias = headerAlias;
+        this.beanType = beanType;
+        this.chunkSize = chunkSize;
+        this.progress = progress;
+        this.chunkHandler = chunkHandler;
+    }
+
+    @Override
+    public void handle(int sheetIndex, long rowIndex, List<Object> rowList) {
+        if (rowIndex < HEADER_ROW_INDEX) {
+            return;
+        }
+        if (rowIndex == HEADER_ROW_INDEX) {
+            header = new ArrayList<>(rowList.size());
+            rowList.forEach(cell -> {
+                String title = StrUtil.trim(StrUtil.toString(cell));
+                header.add(headerAlias.getOrDefault(title, title));
+            });
+            return;
+        }
+        Map<String, Object> row = new HashMap<>(header.size() * 2);
+        boolean blank = true;
+        for (int i = 0; i < rowList.size() && i < header.size(); i++) {
+            Object cell = rowList.get(i);
+            if (ObjectUtil.isNotEmpty(cell)) {
+                blank = false;
+                row.put(header.get(i), cell);
+            }
+        }
+        if (blank) {
+            return;
+        }
+        // Excel 行号从 1 开始
+        chunk.put(rowIndex + 1, BeanUtil.toBeanIgnoreError(row, beanType));
+        if (chunk.size() >= chunkSize) {
+            flush();
+        }
+    }
+
+    /**
+     * 处理剩余不足一块的数据，读取结束后调用
+     */
+    public void finish() {
+        flush();
+    }
+
+    private void flush() {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            chunkHandler.handle(chunk, progress);
+        } catch (Exception e) {
+            log.error("导入数据处理失败", e);
+            chunk.keySet().forEach(row -> progress.addError(row, "导入失败，" + e.getMessage()));
+        }
+        progress.addRows(chunk.size());
+        chunk = new LinkedHashMap<>();
+    }
+}
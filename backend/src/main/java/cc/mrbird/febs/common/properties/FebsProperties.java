@@ -13,4 +13,6 @@ public class FebsProperties {
 
     private boolean openAopLog = true;
 
+    private boolean lazyCache = false;
+
 }
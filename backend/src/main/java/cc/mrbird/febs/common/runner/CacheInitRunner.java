@@ -1,33 +1,41 @@
 package cc.mrbird.febs.common.runner;
 
 import cc.mrbird.febs.common.exception.RedisConnectException;
+import cc.mrbird.febs.common.properties.FebsProperties;
 import cc.mrbird.febs.common.service.CacheService;
-import cc.mrbird.febs.system.domain.User;
+import cc.mrbird.febs.system.manager.LoginStatManager;
 import cc.mrbird.febs.system.manager.UserManager;
-import cc.mrbird.febs.system.service.UserService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * 缓存初始化
+ * 启动时只检查 Redis连接，用户缓存在后台按批次预热，预热完成前未命中的缓存由查询时回填；
+ * 开启 febs.lazyCache 时不预热，全部按需回填
  */
 @Slf4j
 @Component
 public class CacheInitRunner implements ApplicationRunner {
 
-    @Autowired
-    private UserService userService;
-
     @Autowired
     private CacheService cacheService;
     @Autowired
     private UserManager userManager;
+    @Autowired
+    private LoginStatManager loginStatManager;
+    @Autowired
+    private FebsProperties properties;
+
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
 
     @Autowired
     private ConfigurableApplicationContext context;
@@ -37,13 +45,6 @@ public class CacheInitRunner implements ApplicationRunner {
         try {
             log.info("Redis连接中 ······");
             cacheService.testConnect();
-
-            log.info("缓存初始化 ······");
-            log.info("缓存用户数据 ······");
-            List<User> list = this.userService.list();
-            for (User user : list) {
-                userManager.loadUserRedisCache(user);
-            }
         } catch (Exception e) {
             log.error("缓存初始化失败，{}", e.getMessage());
             log.error(" ____   __    _   _ ");
@@ -55,6 +56,25 @@ public class CacheInitRunner implements ApplicationRunner {
                 log.error("Redis连接异常，请检查Redis连接配置并确保Redis服务已启动");
             // 关闭 FEBS
             context.close();
+            return;
+        }
+        taskExecutor.execute(this::warmUp);
+    }
+
+    private void warmUp() {
+        try {
+            if (properties.isLazyCache()) {
+                log.info("用户缓存按需加载，跳过预热");
+            } else {
+                log.info("缓存用户数据 ······");
+                long start = System.currentTimeMillis();
+                userManager.loadAllUserRedisCache();
+                log.info("用户缓存预热完成，耗时{}ms", System.currentTimeMillis() - start);
+            }
+            log.info("缓存访问统计数据 ······");
+            loginStatManager.init();
+        } catch (Exception e) {
+            log.error("缓存预热失败，未命中的缓存将在查询时回填", e);
         }
     }
 }
@@ -0,0 +1,50 @@
+package cc.mrbird.febs.common.service;
+
+import cc.mrbird.febs.common.domain.ActiveUser;
+import cc.mrbird.febs.common.exception.RedisConnectException;
+
+import java.util.List;
+
+public interface ActiveUserService {
+
+    /**
+     * 保存在线用户会话
+     *
+     * @param activeUser   在线用户
+     * @param expireAt     过期时间，格式 yyyyMMddHHmmss
+     * @param milliseconds 有效期，单位毫秒
+     */
+    void save(ActiveUser activeUser, String expireAt, Long milliseconds) throws RedisConnectException;
+
+    /**
+     * 查询用户名对应的在线会话
+     *
+     * @param username 用户名
+     * @return 在线用户
+     */
+    List<ActiveUser> findByUsername(String username) throws RedisConnectException;
+
+    /**
+     * 按过期时间顺序查询在线会话
+     *
+     * @param offset 偏移量
+     * @param count  数量，小于 0 时返回全部
+     * @return 在线用户
+     */
+    List<ActiveUser> findAll(int offset, int count) throws RedisConnectException;
+
+    /**
+     * 在线会话数
+     *
+     * @return 数量
+     */
+    Long count() throws RedisConnectException;
+
+    /**
+     * 删除在线会话
+     *
+     * @param id 会话编号
+     * @return 被删除的在线用户，不存在时返回 null
+     */
+    ActiveUser remove(String id) throws RedisConnectException;
+}
@@ -5,6 +5,8 @@ import cc.mrbird.febs.system.domain.Role;
 import cc.mrbird.febs.system.domain.User;
 import cc.mrbird.febs.system.domain.UserConfig;
 
+import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 
 public interface CacheService {
@@ -110,4 +112,62 @@ public interface CacheService {
      */
     void deleteUserConfigs(String userId) throws Exception;
 
+    /**
+     * 批量缓存用户信息、角色、权限与个性化配置，按批次集合查询数据库，Redis 命令通过 pipeline 批量发送
+     *
+     * @param userIds 用户 ID集合
+     */
+    void saveUserCaches(Collection<? extends Serializable> userIds) throws Exception;
+
+    /**
+     * 批量缓存用户角色与权限，按批次集合查询数据库，Redis 命令通过 pipeline 批量发送
+     *
+     * @param userIds 用户 ID集合
+     */
+    void saveAuthorizations(Collection<? extends Serializable> userIds) throws Exception;
+
+    /**
+     * 预热用户缓存，与 saveUserCaches 相同但不发送变更通知
+     *
+     * @param userIds 用户 ID集合
+     */
+    void loadUserCaches(Collection<? extends Serializable> userIds) throws Exception;
+
+    /**
+     * 批量删除用户信息、角色、权限与个性化配置，Redis 命令通过 pipeline 批量发送
+     *
+     * @param users 用户
+     */
+    void deleteUserCaches(List<User> users) throws Exception;
+
+    /**
+     * 缓存未命中时回填用户详情，不发送变更通知
+     *
+     * @param username 用户名
+     */
+    void fillUser(String username) throws Exception;
+
+    /**
+     * 缓存未命中时回填用户角色，不发送变更通知
+     *
+     * @param username 用户名
+     * @param roles    角色集
+     */
+    void fillRoles(String username, List<Role> roles) throws Exception;
+
+    /**
+     * 缓存未命中时回填用户权限，不发送变更通知
+     *
+     * @param username    用户名
+     * @param permissions 权限集
+     */
+    void fillPermissions(String username, List<Menu> permissions) throws Exception;
+
+    /**
+     * 缓存未命中时回填用户个性化配置，不发送变更通知
+     *
+     * @param userConfig 个性化配置
+     */
+    void fillUserConfig(UserConfig userConfig) throws Exception;
+
 }
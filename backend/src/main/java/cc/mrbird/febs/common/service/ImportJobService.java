@@ -0,0 +1,26 @@
+package cc.mrbird.febs.common.service;
+
+import cc.mrbird.febs.common.domain.ImportProgress;
+import cc.mrbird.febs.common.exception.FebsException;
+import cc.mrbird.febs.common.function.ImportTask;
+import org.springframework.web.multipart.MultipartFile;
+
+public interface ImportJobService {
+
+    /**
+     * 暂存上传文件并提交导入任务，任务队列已满时拒绝
+     *
+     * @param file 上传文件
+     * @param task 导入逻辑
+     * @return 导入进度，包含任务编号
+     */
+    ImportProgress submit(MultipartFile file, ImportTask task) throws FebsException;
+
+    /**
+     * 获取导入任务进度
+     *
+     * @param id 任务编号
+     * @return 导入进度，任务不存在或已过期时返回 null
+     */
+    ImportProgress get(String id);
+}
@@ -2,7 +2,10 @@ package cc.mrbird.febs.common.service;
 
 import cc.mrbird.febs.common.domain.RedisInfo;
 import cc.mrbird.febs.common.exception.RedisConnectException;
+import cc.mrbird.febs.common.function.PipelineExecutor;
+import cc.mrbird.febs.common.function.ScanHandler;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -31,13 +34,41 @@ public interface RedisService {
     Map<String, Object> getMemoryInfo() throws RedisConnectException;
 
     /**
-     * 获取 key
+     * 获取 key，通过 SCAN 分批遍历，不阻塞 Redis
      *
      * @param pattern 正则
      * @return Set
      */
     Set<String> getKeys(String pattern) throws RedisConnectException;
 
+    /**
+     * 通过 SCAN 游标分批遍历匹配的 key
+     *
+     * @param pattern 正则
+     * @param count   每批建议数量
+     * @param handler 每批 key 的处理逻辑
+     */
+    void scan(String pattern, int count, ScanHandler handler) throws RedisConnectException;
+
+    /**
+     * 通过 SCAN 遍历并分批删除匹配的 key
+     *
+     * @param pattern 正则
+     * @return 删除的 key 数量
+     */
+    Long delByPattern(String pattern) throws RedisConnectException;
+
+    /**
+     * 通过 pipeline 批量执行命令，每 batchSize 个元素发送一次，
+     * 注意 pipeline 中的命令不会像 get、set 一样将 key 转为小写
+     *
+     * @param items     元素
+     * @param batchSize 每批元素数量
+     * @param executor  单个元素对应的命令
+     * @return 按发送顺序排列的全部命令结果
+     */
+    <T> List<Object> pipelined(Collection<T> items, int batchSize, PipelineExecutor<T> executor) throws RedisConnectException;
+
     /**
      * get命令
      *
@@ -65,6 +96,25 @@ public interface RedisService {
      */
     String set(String key, String value, Long milliscends) throws RedisConnectException;
 
+    /**
+     * setnx 命令
+     *
+     * @param key   key
+     * @param value value
+     * @return 是否设置成功
+     */
+    Boolean setnx(String key, String value) throws RedisConnectException;
+
+    /**
+     * set 命令，NX PX
+     *
+     * @param key         key
+     * @param value       value
+     * @param milliscends 毫秒
+     * @return 是否设置成功
+     */
+    Boolean setnx(String key, String value, Long milliscends) throws RedisConnectException;
+
     /**
      * del命令
      *
@@ -118,6 +168,28 @@ public interface RedisService {
      */
     Set<String> zrangeByScore(String key, String min, String max) throws RedisConnectException;
 
+    /**
+     * zrangeByScore LIMIT 命令
+     *
+     * @param key    key
+     * @param min    min
+     * @param max    max
+     * @param offset offset
+     * @param count  count
+     * @return Set<String>
+     */
+    Set<String> zrangeByScore(String key, String min, String max, int offset, int count) throws RedisConnectException;
+
+    /**
+     * zcount 命令
+     *
+     * @param key key
+     * @param min min
+     * @param max max
+     * @return Long
+     */
+    Long zcount(String key, String min, String max) throws RedisConnectException;
+
     /**
      * zremrangeByScore 命令
      *
@@ -136,4 +208,97 @@ public interface RedisService {
      * @return Long
      */
     Long zrem(String key, String... members) throws RedisConnectException;
+
+    /**
+     * hmset 命令
+     *
+     * @param key  key
+     * @param hash field -> value
+     * @return String
+     */
+    String hmset(String key, Map<String, String> hash) throws RedisConnectException;
+
+    /**
+     * hgetAll 命令
+     *
+     * @param key key
+     * @return field -> value，key 不存在时为空 Map
+     */
+    Map<String, String> hgetAll(String key) throws RedisConnectException;
+
+    /**
+     * 以 pipeline 批量执行 hgetAll 命令
+     *
+     * @param keys keys
+     * @return 与 keys 顺序一致的结果
+     */
+    List<Map<String, String>> hgetAll(List<String> keys) throws RedisConnectException;
+
+    /**
+     * sadd 命令
+     *
+     * @param key     key
+     * @param members members
+     * @return Long
+     */
+    Long sadd(String key, String... members) throws RedisConnectException;
+
+    /**
+     * smembers 命令
+     *
+     * @param key key
+     * @return Set<String>
+     */
+    Set<String> smembers(String key) throws RedisConnectException;
+
+    /**
+     * srem 命令
+     *
+     * @param key     key
+     * @param members members
+     * @return Long
+     */
+    Long srem(String key, String... members) throws RedisConnectException;
+
+    /**
+     * incr 命令
+     *
+     * @param key key
+     * @return 自增后的值
+     */
+    Long incr(String key) throws RedisConnectException;
+
+    /**
+     * mget 命令
+     *
+     * @param keys keys
+     * @return 与 keys 顺序一致的值，不存在的 key 对应 null
+     */
+    List<String> mget(String... keys) throws RedisConnectException;
+
+    /**
+     * pfadd 命令
+     *
+     * @param key      key
+     * @param elements elements
+     * @return Long
+     */
+    Long pfadd(String key, String... elements) throws RedisConnectException;
+
+    /**
+     * pfcount 命令
+     *
+     * @param key key
+     * @return 基数估计值
+     */
+    Long pfcount(String key) throws RedisConnectException;
+
+    /**
+     * publish 命令
+     *
+     * @param channel channel
+     * @param message message
+     * @return 收到消息的订阅者数
+     */
+    Long publish(String channel, String message) throws RedisConnectException;
 }
@@ -0,0 +1,132 @@
+package cc.mrbird.febs.common.service.impl;
+
+import cc.mrbird.febs.common.domain.ActiveUser;
+import cc.mrbird.febs.common.domain.FebsConstant;
+import cc.mrbird.febs.common.exception.RedisConnectException;
+import cc.mrbird.febs.common.service.ActiveUserService;
+import cc.mrbird.febs.common.service.RedisService;
+import cc.mrbird.febs.common.utils.DateUtil;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * 在线用户会话存储：
+ * 每个会话一个 hash，zset 按过期时间索引会话编号，set 按用户名索引会话编号，
+ * 查询、分页、踢出只读写相关的会话，无需遍历全部在线用户
+ */
+@Service("activeUserService")
+public class ActiveUserServiceImpl implements ActiveUserService {
+
+    @Autowired
+    private RedisService redisService;
+
+    @Override
+    public void save(ActiveUser activeUser, String expireAt, Long milliseconds) throws RedisConnectException {
+        String sessionKey = FebsConstant.ACTIVE_USER_SESSION_PREFIX + activeUser.getId();
+        String nameKey = FebsConstant.ACTIVE_USER_NAME_PREFIX + StringUtils.lowerCase(activeUser.getUsername());
+        // 会话 hash 与两个索引在一个事务中写入，一次往返
+        redisService.pipelined(Collections.singletonList(activeUser), 1, (pipeline, user) -> {
+            pipeline.multi();
+            pipeline.hmset(sessionKey, toHash(user));
+            pipeline.pexpire(sessionKey, milliseconds);
+            pipeline.zadd(FebsConstant.ACTIVE_USERS_ZSET_PREFIX, Double.valueOf(expireAt), user.getId());
+            pipeline.sadd(nameKey, user.getId());
+            pipeline.pexpire(nameKey, milliseconds);
+            pipeline.exec();
+        });
+    }
+
+    @Override
+    public List<ActiveUser> findByUsername(String username) throws RedisConnectException {
+        String nameKey = FebsConstant.ACTIVE_USER_NAME_PREFIX + StringUtils.lowerCase(username);
+        List<String> ids = new ArrayList<>(redisService.smembers(nameKey));
+        List<ActiveUser> activeUsers = new ArrayList<>(ids.size());
+        List<String> expiredIds = new ArrayList<>();
+        List<Map<String, String>> hashes = redisService.hgetAll(sessionKeys(ids));
+        for (int i = 0; i < ids.size(); i++) {
+            if (hashes.get(i) == null || hashes.get(i).isEmpty()) {
+                expiredIds.add(ids.get(i));
+            } else {
+                activeUsers.add(fromHash(hashes.get(i)));
+            }
+        }
+        // 会话 hash 已过期，顺带清理用户名索引
+        if (!expiredIds.isEmpty()) {
+            redisService.srem(nameKey, expiredIds.toArray(new String[0]));
+        }
+        return activeUsers;
+    }
+
+    @Override
+    public List<ActiveUser> findAll(int offset, int count) throws RedisConnectException {
+        String now = DateUtil.formatFullTime(LocalDateTime.now());
+        Set<String> idSet = count < 0
+                ? redisService.zrangeByScore(FebsConstant.ACTIVE_USERS_ZSET_PREFIX, now, "+inf")
+                : redisService.zrangeByScore(FebsConstant.ACTIVE_USERS_ZSET_PREFIX, now, "+inf", offset, count);
+        List<ActiveUser> activeUsers = new ArrayList<>(idSet.size());
+        for (Map<String, String> hash : redisService.hgetAll(sessionKeys(idSet))) {
+            if (hash != null && !hash.isEmpty()) {
+                activeUsers.add(fromHash(hash));
+            }
+        }
+        return activeUsers;
+    }
+
+    @Override
+    public Long count() throws RedisConnectException {
+        String now = DateUtil.formatFullTime(LocalDateTime.now());
+        return redisService.zcount(FebsConstant.ACTIVE_USERS_ZSET_PREFIX, now, "+inf");
+    }
+
+    @Override
+    public ActiveUser remove(String id) throws RedisConnectException {
+        String sessionKey = FebsConstant.ACTIVE_USER_SESSION_PREFIX + id;
+        Map<String, String> hash = redisService.hgetAll(sessionKey);
+        redisService.zrem(FebsConstant.ACTIVE_USERS_ZSET_PREFIX, id);
+        if (hash == null || hash.isEmpty()) {
+            return null;
+        }
+        ActiveUser activeUser = fromHash(hash);
+        redisService.del(sessionKey);
+        redisService.srem(FebsConstant.ACTIVE_USER_NAME_PREFIX + StringUtils.lowerCase(activeUser.getUsername()), id);
+        return activeUser;
+    }
+
+    private List<String> sessionKeys(Collection<String> ids) {
+        List<String> keys = new ArrayList<>(ids.size());
+        ids.forEach(id -> keys.add(FebsConstant.ACTIVE_USER_SESSION_PREFIX + id));
+        return keys;
+    }
+
+    private Map<String, String> toHash(ActiveUser activeUser) {
+        Map<String, String> hash = new HashMap<>();
+        putIfNotNull(hash, "id", activeUser.getId());
+        putIfNotNull(hash, "username", activeUser.getUsername());
+        putIfNotNull(hash, "ip", activeUser.getIp());
+        putIfNotNull(hash, "token", activeUser.getToken());
+        putIfNotNull(hash, "loginTime", activeUser.getLoginTime());
+        putIfNotNull(hash, "loginAddress", activeUser.getLoginAddress());
+        return hash;
+    }
+
+    private void putIfNotNull(Map<String, String> hash, String field, String value) {
+        if (value != null) {
+            hash.put(field, value);
+        }
+    }
+
+    private ActiveUser fromHash(Map<String, String> hash) {
+        ActiveUser activeUser = new ActiveUser();
+        activeUser.setId(hash.get("id"));
+        activeUser.setUsername(hash.get("username"));
+        activeUser.setIp(hash.get("ip"));
+        activeUser.setToken(hash.get("token"));
+        activeUser.setLoginTime(hash.get("loginTime"));
+        activeUser.setLoginAddress(hash.get("loginAddress"));
+        return activeUser;
+    }
+}
@@ -1,5 +1,6 @@
 package cc.mrbird.febs.common.service.impl;
 
+import cc.mrbird.febs.common.authentication.VerifiedTokenCache;
 import cc.mrbird.febs.common.domain.FebsConstant;
 import cc.mrbird.febs.common.service.CacheService;
 import cc.mrbird.febs.common.service.RedisService;
@@ -12,17 +13,27 @@ import cc.mrbird.febs.system.service.MenuService;
 import cc.mrbird.febs.system.service.RoleService;
 import cc.mrbird.febs.system.service.UserConfigService;
 import cc.mrbird.febs.system.service.UserService;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import redis.clients.jedis.Pipeline;
 
-import java.util.List;
+import java.io.Serializable;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service("cacheService")
 public class CacheServiceImpl implements CacheService {
 
+    /**
+     * 每次 pipeline 同步的用户数
+     */
+    private static final int BATCH_SIZE = 500;
+
     @Autowired
     private RedisService redisService;
 
@@ -110,6 +121,7 @@ public class CacheServiceImpl implements CacheService {
             this.deleteRoles(username);
             redisService.set(FebsConstant.USER_ROLE_CACHE_PREFIX + username, mapper.writeValueAsString(roleList));
         }
+        redisService.publish(FebsConstant.USER_AUTH_CHANNEL, username);
 
     }
 
@@ -120,6 +132,7 @@ public class CacheServiceImpl implements CacheService {
             this.deletePermissions(username);
             redisService.set(FebsConstant.USER_PERMISSION_CACHE_PREFIX + username, mapper.writeValueAsString(permissionList));
         }
+        redisService.publish(FebsConstant.USER_AUTH_CHANNEL, username);
     }
 
     @Override
@@ -135,22 +148,200 @@ public class CacheServiceImpl implements CacheService {
     public void deleteUser(String username) throws Exception {
         username = username.toLowerCase();
         redisService.del(FebsConstant.USER_CACHE_PREFIX + username);
+        // 用户信息变更（如修改密码、锁定）后，该用户已认证的 token需重新校验
+        redisService.publish(FebsConstant.TOKEN_REVOKE_CHANNEL, VerifiedTokenCache.REVOKE_USER + username);
     }
 
     @Override
     public void deleteRoles(String username) throws Exception {
         username = username.toLowerCase();
         redisService.del(FebsConstant.USER_ROLE_CACHE_PREFIX + username);
+        redisService.publish(FebsConstant.USER_AUTH_CHANNEL, username);
     }
 
     @Override
     public void deletePermissions(String username) throws Exception {
         username = username.toLowerCase();
         redisService.del(FebsConstant.USER_PERMISSION_CACHE_PREFIX + username);
+        redisService.publish(FebsConstant.USER_AUTH_CHANNEL, username);
     }
 
     @Override
     public void deleteUserConfigs(String userId) throws Exception {
         redisService.del(FebsConstant.USER_CONFIG_CACHE_PREFIX + userId);
     }
+
+    @Override
+    public void saveUserCaches(Collection<? extends Serializable> userIds) throws Exception {
+        this.save(userIds, true, true);
+    }
+
+    @Override
+    public void saveAuthorizations(Collection<? extends Serializable> userIds) throws Exception {
+        this.save(userIds, false, true);
+    }
+
+    @Override
+    public void loadUserCaches(Collection<? extends Serializable> userIds) throws Exception {
+        this.save(userIds, true, false);
+    }
+
+    @Override
+    public void deleteUserCaches(List<User> users) throws Exception {
+        redisService.pipelined(users, BATCH_SIZE, (pipeline, user) -> {
+            String username = user.getUsername().toLowerCase();
+            pipeline.del(FebsConstant.USER_CACHE_PREFIX + username,
+                    FebsConstant.USER_ROLE_CACHE_PREFIX + username,
+                    FebsConstant.USER_PERMISSION_CACHE_PREFIX + username,
+                    FebsConstant.USER_CONFIG_CACHE_PREFIX + user.getUserId());
+            pipeline.publish(FebsConstant.TOKEN_REVOKE_CHANNEL, VerifiedTokenCache.REVOKE_USER + username);
+            pipeline.publish(FebsConstant.USER_AUTH_CHANNEL, username);
+        });
+    }
+
+    @Override
+    public void fillUser(String username) throws Exception {
+        User user = userMapper.findDetail(username);
+        if (user != null) {
+            redisService.set(FebsConstant.USER_CACHE_PREFIX + username, mapper.writeValueAsString(user));
+        }
+    }
+
+    @Override
+    public void fillRoles(String username, List<Role> roles) throws Exception {
+        if (!roles.isEmpty()) {
+            redisService.set(FebsConstant.USER_ROLE_CACHE_PREFIX + username, mapper.writeValueAsString(roles));
+        }
+    }
+
+    @Override
+    public void fillPermissions(String username, List<Menu> permissions) throws Exception {
+        if (!permissions.isEmpty()) {
+            redisService.set(FebsConstant.USER_PERMISSION_CACHE_PREFIX + username, mapper.writeValueAsString(permissions));
+        }
+    }
+
+    @Override
+    public void fillUserConfig(UserConfig userConfig) throws Exception {
+        redisService.set(FebsConstant.USER_CONFIG_CACHE_PREFIX + userConfig.getUserId(), mapper.writeValueAsString(userConfig));
+    }
+
+    /**
+     * 每 BATCH_SIZE 个用户查询一次用户详情、角色、权限与个性化配置，再通过一次 pipeline 写入
+     *
+     * @param userIds 用户 ID集合
+     * @param full    是否同时缓存用户详情与个性化配置，否则只缓存角色与权限
+     * @param notify  是否通知其他节点失效本地缓存
+     */
+    private void save(Collection<? extends Serializable> userIds, boolean full, boolean notify) throws Exception {
+        List<Serializable> ids = new ArrayList<>(userIds);
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<Serializable> chunk = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+            Collection<User> users = full ? userMapper.findDetails(chunk) : userService.listByIds(chunk);
+            Map<String, List<Role>> roleMap = roleService.findUsersRole(chunk).stream()
+                    .collect(Collectors.groupingBy(role -> role.getUsername().toLowerCase()));
+            Map<String, List<Menu>> permissionMap = menuService.findUsersPermissions(chunk).stream()
+                    .collect(Collectors.groupingBy(menu -> menu.getUsername().toLowerCase()));
+            Map<Long, UserConfig> configMap = full
+                    ? userConfigService.listByIds(chunk).stream().collect(Collectors.toMap(UserConfig::getUserId, Function.identity()))
+                    : Collections.emptyMap();
+
+            List<UserCache> caches = new ArrayList<>(users.size());
+            for (User user : users) {
+                String username = user.getUsername().toLowerCase();
+                List<Role> roles = roleMap.get(username);
+                List<Menu> permissions = permissionMap.get(username);
+                if (roles != null) {
+                    roles.forEach(role -> role.setUsername(null));
+                }
+                if (permissions != null) {
+                    permissions.forEach(menu -> menu.setUsername(null));
+                }
+                UserCache cache = new UserCache(username, full ? String.valueOf(user.getUserId()) : null)
+                        .setRoles(toJson(roles))
+                        .setPermissions(toJson(permissions));
+                if (full) {
+                    cache.setUser(mapper.writeValueAsString(user))
+                            .setConfig(toJson(configMap.get(user.getUserId())));
+                }
+                caches.add(cache);
+            }
+            redisService.pipelined(caches, BATCH_SIZE, (pipeline, cache) -> this.write(pipeline, cache, notify));
+        }
+    }
+
+    /**
+     * 写入单个用户的缓存，为 null 的部分不处理，空集合对应的缓存直接删除
+     */
+    private void write(Pipeline pipeline, UserCache cache, boolean notify) {
+        if (cache.user != null) {
+            pipeline.set(FebsConstant.USER_CACHE_PREFIX + cache.username, cache.user);
+            if (notify) {
+                pipeline.publish(FebsConstant.TOKEN_REVOKE_CHANNEL, VerifiedTokenCache.REVOKE_USER + cache.username);
+            }
+        }
+        if (cache.userId != null) {
+            setOrDel(pipeline, FebsConstant.USER_CONFIG_CACHE_PREFIX + cache.userId, cache.config);
+        }
+        setOrDel(pipeline, FebsConstant.USER_ROLE_CACHE_PREFIX + cache.username, cache.roles);
+        setOrDel(pipeline, FebsConstant.USER_PERMISSION_CACHE_PREFIX + cache.username, cache.permissions);
+        if (notify) {
+            pipeline.publish(FebsConstant.USER_AUTH_CHANNEL, cache.username);
+        }
+    }
+
+    private void setOrDel(Pipeline pipeline, String key, String value) {
+        if (value == null) {
+            pipeline.del(key);
+        } else {
+            pipeline.set(key, value);
+        }
+    }
+
+    private String toJson(Object value) throws JsonProcessingException {
+        if (value == null || (value instanceof Collection && ((Collection<?>) value).isEmpty())) {
+            return null;
+        }
+        return mapper.writeValueAsString(value);
+    }
+
+    private static class UserCache {
+
+        private final String username;
+
+        private final String userId;
+
+        private String user;
+
+        private String roles;
+
+        private String permissions;
+
+        private String config;
+
+        private UserCache(String username, String userId) {
+            this.username = username;
+            this.userId = userId;
+        }
+
+        private UserCache setUser(String user) {
+            this.user = user;
+            return this;
+        }
+
+        private UserCache setRoles(String roles) {
+            this.roles = roles;
+            return this;
+        }
+
+        private UserCache setPermissions(String permissions) {
+            this.permissions = permissions;
+            return this;
+        }
+
+        private UserCache setConfig(String config) {
+            this.config = config;
+            return this;
+        }
+    }
 }
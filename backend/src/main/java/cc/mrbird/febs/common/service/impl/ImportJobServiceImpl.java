@@ -0,0 +1,99 @@
+package cc.mrbird.febs.common.service.impl;
+
+import cc.mrbird.febs.common.domain.ImportProgress;
+import cc.mrbird.febs.common.exception.FebsException;
+import cc.mrbird.febs.common.function.ImportTask;
+import cc.mrbird.febs.common.service.ImportJobService;
+import cn.hutool.core.io.FileUtil;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service("importJobService")
+public class ImportJobServiceImpl implements ImportJobService {
+
+    @Autowired
+    @Qualifier("importExecutor")
+    private Executor importExecutor;
+
+    // 排队中与执行中的导入任务，不过期
+    private final Map<String, ImportProgress> runningJobs = new ConcurrentHashMap<>();
+
+    // 已结束的导入任务，一小时未查询后过期
+    private final Cache<String, ImportProgress> jobCache = CacheBuilder.newBuilder()
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .build();
+
+    @Override
+    public ImportProgress submit(MultipartFile file, ImportTask task) throws FebsException {
+        // 上传文件在请求结束后即被清理，先转存到临时文件
+        File tempFile;
+        try {
+            tempFile = File.createTempFile("import-", "." + FileUtil.extName(file.getOriginalFilename()));
+        } catch (IOException e) {
+            log.error("导入文件暂存失败", e);
+            throw new FebsException("导入文件暂存失败");
+        }
+        try {
+            file.transferTo(tempFile);
+        } catch (IOException e) {
+            log.error("导入文件暂存失败", e);
+            delete(tempFile);
+            throw new FebsException("导入文件暂存失败");
+        }
+
+        ImportProgress progress = new ImportProgress();
+        runningJobs.put(progress.getId(), progress);
+        try {
+            importExecutor.execute(() -> run(tempFile, task, progress));
+        } catch (TaskRejectedException e) {
+            runningJobs.remove(progress.getId());
+            delete(tempFile);
+            throw new FebsException("导入任务繁忙，请稍后再试");
+        }
+        return progress;
+    }
+
+    @Override
+    public ImportProgress get(String id) {
+        ImportProgress progress = runningJobs.get(id);
+        return progress != null ? progress : jobCache.getIfPresent(id);
+    }
+
+    private void run(File tempFile, ImportTask task, ImportProgress progress) {
+        progress.start();
+        try {
+            String message = task.run(tempFile, progress);
+            progress.finish(ImportProgress.STATUS_FINISHED, message);
+        } catch (Exception e) {
+            log.error("导入任务{}执行失败", progress.getId(), e);
+            progress.finish(ImportProgress.STATUS_FAILED, "导入异常");
+        } finally {
+            // 任务结束即删除暂存文件，无论成功与否
+            delete(tempFile);
+            // 结束后才开始计时过期，先放入缓存再移除，避免查询间隙找不到
+            jobCache.put(progress.getId(), progress);
+            runningJobs.remove(progress.getId());
+        }
+    }
+
+    private void delete(File tempFile) {
+        if (tempFile.exists() && !tempFile.delete()) {
+            log.warn("导入暂存文件{}删除失败", tempFile.getAbsolutePath());
+            tempFile.deleteOnExit();
+        }
+    }
+}
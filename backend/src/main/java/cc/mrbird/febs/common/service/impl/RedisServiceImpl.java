@@ -3,12 +3,18 @@ package cc.mrbird.febs.common.service.impl;
 import cc.mrbird.febs.common.domain.RedisInfo;
 import cc.mrbird.febs.common.exception.RedisConnectException;
 import cc.mrbird.febs.common.function.JedisExecutor;
+import cc.mrbird.febs.common.function.PipelineExecutor;
+import cc.mrbird.febs.common.function.ScanHandler;
 import cc.mrbird.febs.common.service.RedisService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import redis.clients.jedis.Client;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
 
 import java.util.*;
 
@@ -26,6 +32,11 @@ public class RedisServiceImpl implements RedisService {
 
     private static String separator = System.getProperty("line.separator");
 
+    /**
+     * SCAN 每批建议返回的 key 数量
+     */
+    private static final int SCAN_COUNT = 1000;
+
     /**
      * 处理 jedis请求
      *
@@ -108,7 +119,49 @@ public class RedisServiceImpl implements RedisService {
 
     @Override
     public Set<String> getKeys(String pattern) throws RedisConnectException {
-        return this.excuteByJedis(j -> j.keys(pattern));
+        Set<String> keys = new HashSet<>();
+        this.scan(pattern, SCAN_COUNT, keys::addAll);
+        return keys;
+    }
+
+    @Override
+    public void scan(String pattern, int count, ScanHandler handler) throws RedisConnectException {
+        this.excuteByJedis(j -> {
+            ScanParams params = new ScanParams().match(pattern).count(count);
+            String cursor = ScanParams.SCAN_POINTER_START;
+            do {
+                ScanResult<String> result = j.scan(cursor, params);
+                if (!result.getResult().isEmpty()) {
+                    handler.handle(result.getResult());
+                }
+                cursor = result.getStringCursor();
+            } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+            return null;
+        });
+    }
+
+    @Override
+    public Long delByPattern(String pattern) throws RedisConnectException {
+        long[] deleted = {0L};
+        this.scan(pattern, SCAN_COUNT, keys -> deleted[0] += this.del(keys.toArray(new String[0])));
+        return deleted[0];
+    }
+
+    @Override
+    public <T> List<Object> pipelined(Collection<T> items, int batchSize, PipelineExecutor<T> executor) throws RedisConnectException {
+        return this.excuteByJedis(j -> {
+            List<Object> results = new ArrayList<>();
+            Pipeline pipeline = j.pipelined();
+            int size = 0;
+            for (T item : items) {
+                executor.excute(pipeline, item);
+                if (++size % batchSize == 0) {
+                    results.addAll(pipeline.syncAndReturnAll());
+                }
+            }
+            results.addAll(pipeline.syncAndReturnAll());
+            return results;
+        });
     }
 
     @Override
@@ -128,6 +181,16 @@ public class RedisServiceImpl implements RedisService {
         return result;
     }
 
+    @Override
+    public Boolean setnx(String key, String value) throws RedisConnectException {
+        return this.excuteByJedis(j -> j.setnx(key.toLowerCase(), value) == 1L);
+    }
+
+    @Override
+    public Boolean setnx(String key, String value, Long milliscends) throws RedisConnectException {
+        return this.excuteByJedis(j -> "OK".equals(j.set(key.toLowerCase(), value, "NX", "PX", milliscends)));
+    }
+
     @Override
     public Long del(String... key) throws RedisConnectException {
         return this.excuteByJedis(j -> j.del(key));
@@ -158,6 +221,16 @@ public class RedisServiceImpl implements RedisService {
         return this.excuteByJedis(j -> j.zrangeByScore(key, min, max));
     }
 
+    @Override
+    public Set<String> zrangeByScore(String key, String min, String max, int offset, int count) throws RedisConnectException {
+        return this.excuteByJedis(j -> j.zrangeByScore(key, min, max, offset, count));
+    }
+
+    @Override
+    public Long zcount(String key, String min, String max) throws RedisConnectException {
+        return this.excuteByJedis(j -> j.zcount(key, min, max));
+    }
+
     @Override
     public Long zremrangeByScore(String key, String start, String end) throws RedisConnectException {
         return this.excuteByJedis(j -> j.zremrangeByScore(key, start, end));
@@ -168,4 +241,67 @@ public class RedisServiceImpl implements RedisService {
         return this.excuteByJedis(j -> j.zrem(key, members));
     }
 
+    @Override
+    public String hmset(String key, Map<String, String> hash) throws RedisConnectException {
+        return this.excuteByJedis(j -> j.hmset(key, hash));
+    }
+
+    @Override
+    public Map<String, String> hgetAll(String key) throws RedisConnectException {
+        return this.excuteByJedis(j -> j.hgetAll(key));
+    }
+
+    @Override
+    public List<Map<String, String>> hgetAll(List<String> keys) throws RedisConnectException {
+        return this.excuteByJedis(j -> {
+            Pipeline pipeline = j.pipelined();
+            List<Response<Map<String, String>>> responses = new ArrayList<>(keys.size());
+            keys.forEach(key -> responses.add(pipeline.hgetAll(key)));
+            pipeline.sync();
+            List<Map<String, String>> result = new ArrayList<>(keys.size());
+            responses.forEach(response -> result.add(response.get()));
+            return result;
+        });
+    }
+
+    @Override
+    public Long sadd(String key, String... members) throws RedisConnectException {
+        return this.excuteByJedis(j -> j.sadd(key, members));
+    }
+
+    @Override
+    public Set<String> smembers(String key) throws RedisConnectException {
+        return this.excuteByJedis(j -> j.smembers(key));
+    }
+
+    @Override
+    public Long srem(String key, String... members) throws RedisConnectException {
+        return this.excuteByJedis(j -> j.srem(key, members));
+    }
+
+    @Override
+    public Long incr(String key) throws RedisConnectException {
+        return this.excuteByJedis(j -> j.incr(key));
+    }
+
+    @Override
+    public List<String> mget(String... keys) throws RedisConnectException {
+        return this.excuteByJedis(j -> j.mget(keys));
+    }
+
+    @Override
+    public Long pfadd(String key, String... elements) throws RedisConnectException {
+        return this.excuteByJedis(j -> j.pfadd(key, elements));
+    }
+
+    @Override
+    public Long pfcount(String key) throws RedisConnectException {
+        return this.excuteByJedis(j -> j.pfcount(key));
+    }
+
+    @Override
+    public Long publish(String channel, String message) throws RedisConnectException {
+        return this.excuteByJedis(j -> j.publish(channel, message));
+    }
+
 }
@@ -0,0 +1,27 @@
+package cc.mrbird.febs.common.task;
+
+import cc.mrbird.febs.cos.manager.ReplenishmentEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 每小时执行一次补货评估，补货决定变化时更新未处理的补货通知，不重复生成
+ */
+@Slf4j
+@Component
+public class ReplenishmentTask {
+
+    @Autowired
+    private ReplenishmentEngine replenishmentEngine;
+
+    @Scheduled(cron = "0 0 * * * ?")
+    public void run() {
+        try {
+            replenishmentEngine.run(false);
+        } catch (Exception e) {
+            log.error("replenishment evaluation failed", e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package cc.mrbird.febs.common.task;
+
+import cc.mrbird.febs.cos.service.IStockDailyRollupService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 每日凌晨由出入库记录重建最近几天的 stock_daily_rollup，
+ * 修正手工改库等绕过过账造成的汇总偏差。按天分别提交事务，
+ * 历史数据的全量重建只在手工触发时执行
+ */
+@Slf4j
+@Component
+public class StockRollupTask {
+
+    /**
+     * 每日重建的天数，含当天
+     */
+    private static final int RECENT_DAYS = 7;
+
+    @Autowired
+    private IStockDailyRollupService stockDailyRollupService;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Scheduled(cron = "0 0 3 * * ?")
+    public void run() {
+        try {
+            int rows = rebuild(LocalDate.now().minusDays(RECENT_DAYS - 1));
+            if (rows < 0) {
+                log.warn("stock daily rollup is being rebuilt, skip");
+                return;
+            }
+            log.info("rebuild stock daily rollup of recent {} days, {} rows", RECENT_DAYS, rows);
+        } catch (Exception e) {
+            log.error("rebuild stock daily rollup failed", e);
+        }
+    }
+
+    /**
+     * 由全部出入库记录重建汇总，逐日提交
+     *
+     * @return 重建后的汇总行数，已有重建在执行时返回 -1
+     */
+    public int rebuildAll() {
+        String firstDay = stockDailyRollupService.selectFirstDay();
+        if (firstDay == null) {
+            return 0;
+        }
+        int rows = rebuild(LocalDate.parse(firstDay));
+        if (rows >= 0) {
+            log.info("rebuild stock daily rollup since {}, {} rows", firstDay, rows);
+        }
+        return rows;
+    }
+
+    private int rebuild(LocalDate start) {
+        if (!running.compareAndSet(false, true)) {
+            return -1;
+        }
+        try {
+            int rows = 0;
+            for (LocalDate day = start; !day.isAfter(LocalDate.now()); day = day.plusDays(1)) {
+                rows += stockDailyRollupService.rebuildDay(day.toString());
+            }
+            return rows;
+        } finally {
+            running.set(false);
+        }
+    }
+}
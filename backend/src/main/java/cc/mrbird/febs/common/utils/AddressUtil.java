@@ -1,54 +1,71 @@
 package cc.mrbird.febs.common.utils;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.lionsoul.ip2region.DataBlock;
 import org.lionsoul.ip2region.DbConfig;
 import org.lionsoul.ip2region.DbSearcher;
 import org.lionsoul.ip2region.Util;
 
-import java.io.File;
-import java.io.IOException;
-import java.lang.reflect.Method;
+import java.io.InputStream;
 import java.util.Objects;
 
 @Slf4j
 public class AddressUtil {
 
+    /**
+     * 最近查询的 IP 地址缓存条数
+     */
+    private static final int CACHE_SIZE = 4096;
+
+    private static final Cache<String, String> REGION_CACHE = CacheBuilder.newBuilder()
+            .maximumSize(CACHE_SIZE)
+            .build();
+
     public static String getCityInfo(String ip) {
-        DbSearcher searcher = null;
+        if (!Util.isIpAddress(ip)) {
+            log.error("Error: Invalid ip address");
+            return "";
+        }
+        String region = REGION_CACHE.getIfPresent(ip);
+        if (region != null) {
+            return region;
+        }
+        DbSearcher searcher = SearcherHolder.SEARCHER;
+        if (searcher == null) {
+            return "";
+        }
         try {
-            String dbPath = AddressUtil.class.getResource("/ip2region/ip2region.db").getPath();
-            File file = new File(dbPath);
-            if (!file.exists()) {
-                String tmpDir = System.getProperties().getProperty("java.io.tmpdir");
-                dbPath = tmpDir + "ip.db";
-                file = new File(dbPath);
-                FileUtils.copyInputStreamToFile(Objects.requireNonNull(AddressUtil.class.getClassLoader().getResourceAsStream("classpath:ip2region/ip2region.db")), file);
-            }
-            int algorithm = DbSearcher.BTREE_ALGORITHM;
-            DbConfig config = new DbConfig();
-            searcher = new DbSearcher(config, file.getPath());
-            Method method = null;
-            method = searcher.getClass().getMethod("btreeSearch", String.class);
-            DataBlock dataBlock = null;
-            if (!Util.isIpAddress(ip)) {
-                log.error("Error: Invalid ip address");
-            }
-            dataBlock = (DataBlock) method.invoke(searcher, ip);
-            return dataBlock.getRegion();
+            DataBlock dataBlock = searcher.memorySearch(ip);
+            region = dataBlock == null ? "" : dataBlock.getRegion();
+            REGION_CACHE.put(ip, region);
+            return region;
         } catch (Exception e) {
             log.error("获取地址信息异常", e);
-        } finally {
-            if (searcher != null) {
-                try {
-                    searcher.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
         }
         return "";
     }
 
-}
\ No newline at end of file
+    /**
+     * 首次使用时将 ip2region.db 整体读入内存，之后的查询只读内存中的字节数组，可多线程共用
+     */
+    private static class SearcherHolder {
+
+        private static final DbSearcher SEARCHER = load();
+
+        private static DbSearcher load() {
+            try (InputStream in = AddressUtil.class.getResourceAsStream("/ip2region/ip2region.db")) {
+                DbSearcher searcher = new DbSearcher(new DbConfig(), IOUtils.toByteArray(Objects.requireNonNull(in)));
+                // 首次查询时才读取索引区位置，在发布前完成
+                searcher.memorySearch("127.0.0.1");
+                return searcher;
+            } catch (Exception e) {
+                log.error("加载 ip2region 数据库失败", e);
+                return null;
+            }
+        }
+    }
+
+}
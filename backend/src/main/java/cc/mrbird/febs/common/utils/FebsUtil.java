@@ -3,6 +3,7 @@ package cc.mrbird.febs.common.utils;
 import cc.mrbird.febs.common.authentication.JWTUtil;
 import cc.mrbird.febs.common.domain.FebsConstant;
 import cc.mrbird.febs.common.function.CacheSelector;
+import cc.mrbird.febs.common.function.CacheWriter;
 import cc.mrbird.febs.common.service.CacheService;
 import cc.mrbird.febs.system.domain.User;
 import cc.mrbird.febs.system.service.UserService;
@@ -46,6 +47,34 @@ public class FebsUtil {
         }
     }
 
+    /**
+     * 缓存查询模板，缓存未命中时查询数据库并回填缓存
+     *
+     * @param cacheSelector    查询缓存的方法
+     * @param databaseSelector 数据库查询方法
+     * @param cacheWriter      回填缓存的方法，数据库查询结果为 null 时不回填
+     * @return T
+     */
+    public static <T> T selectCacheByTemplate(CacheSelector<T> cacheSelector, Supplier<T> databaseSelector, CacheWriter<T> cacheWriter) {
+        try {
+            T t = cacheSelector.select();
+            if (t != null) {
+                return t;
+            }
+        } catch (Exception e) {
+            log.debug("cache miss, query data from database ······");
+        }
+        T t = databaseSelector.get();
+        if (t != null) {
+            try {
+                cacheWriter.write(t);
+            } catch (Exception e) {
+                log.error("redis error：", e);
+            }
+        }
+        return t;
+    }
+
     /**
      * 获取当前操作用户
      *
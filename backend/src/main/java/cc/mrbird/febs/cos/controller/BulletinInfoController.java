@@ -4,6 +4,7 @@ package cc.mrbird.febs.cos.controller;
 import cc.mrbird.febs.common.utils.R;
 import cc.mrbird.febs.cos.entity.BulletinInfo;
 import cc.mrbird.febs.cos.service.IBulletinInfoService;
+import cc.mrbird.febs.cos.service.IStockInfoService;
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.util.StrUtil;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
@@ -25,6 +26,8 @@ public class BulletinInfoController {
 
     private final IBulletinInfoService bulletinInfoService;
 
+    private final IStockInfoService stockInfoService;
+
     /**
      * 分页获取公告信息
      * @param page
@@ -46,7 +49,9 @@ public class BulletinInfoController {
     @PostMapping
     public R save(BulletinInfo bulletinInfo) {
         bulletinInfo.setDate(DateUtil.formatDateTime(new Date()));
-        return R.ok(bulletinInfoService.save(bulletinInfo));
+        boolean result = bulletinInfoService.save(bulletinInfo);
+        stockInfoService.evictHome();
+        return R.ok(result);
     }
 
     /**
@@ -56,7 +61,9 @@ public class BulletinInfoController {
      */
     @PutMapping
     public R edit(BulletinInfo bulletinInfo) {
-        return R.ok(bulletinInfoService.updateById(bulletinInfo));
+        boolean result = bulletinInfoService.updateById(bulletinInfo);
+        stockInfoService.evictHome();
+        return R.ok(result);
     }
 
     /**
@@ -66,7 +73,9 @@ public class BulletinInfoController {
      */
     @DeleteMapping("/{ids}")
     public R deleteByIds(@PathVariable("ids") List<Integer> ids) {
-        return R.ok(bulletinInfoService.removeByIds(ids));
+        boolean result = bulletinInfoService.removeByIds(ids);
+        stockInfoService.evictHome();
+        return R.ok(result);
     }
 
 }
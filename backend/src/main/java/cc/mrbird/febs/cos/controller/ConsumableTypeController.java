@@ -3,6 +3,7 @@ package cc.mrbird.febs.cos.controller;
 
 import cc.mrbird.febs.common.utils.R;
 import cc.mrbird.febs.cos.entity.ConsumableType;
+import cc.mrbird.febs.cos.manager.StockBoard;
 import cc.mrbird.febs.cos.service.IConsumableTypeService;
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.util.StrUtil;
@@ -25,6 +26,8 @@ public class ConsumableTypeController {
 
     private final IConsumableTypeService consumableTypeService;
 
+    private final StockBoard stockBoard;
+
     /**
      * 获取所有耗材类别
      *
@@ -56,7 +59,9 @@ public class ConsumableTypeController {
     @PostMapping
     public R save(ConsumableType consumableType) {
         consumableType.setCreateDate(DateUtil.formatDateTime(new Date()));
-        return R.ok(consumableTypeService.save(consumableType));
+        boolean result = consumableTypeService.save(consumableType);
+        stockBoard.loadTypes();
+        return R.ok(result);
     }
 
     /**
@@ -67,7 +72,9 @@ public class ConsumableTypeController {
      */
     @PutMapping
     public R edit(ConsumableType consumableType) {
-        return R.ok(consumableTypeService.updateById(consumableType));
+        boolean result = consumableTypeService.updateById(consumableType);
+        stockBoard.loadTypes();
+        return R.ok(result);
     }
 
     /**
@@ -78,7 +85,9 @@ public class ConsumableTypeController {
      */
     @DeleteMapping("/{ids}")
     public R deleteByIds(@PathVariable("ids") List<Integer> ids) {
-        return R.ok(consumableTypeService.removeByIds(ids));
+        boolean result = consumableTypeService.removeByIds(ids);
+        stockBoard.loadTypes();
+        return R.ok(result);
     }
 
 
@@ -1,5 +1,7 @@
 package cc.mrbird.febs.cos.controller;
 
+import cc.mrbird.febs.common.exception.FebsException;
+import cc.mrbird.febs.common.service.ImportJobService;
 import cc.mrbird.febs.common.utils.R;
 import cc.mrbird.febs.cos.entity.EnterpriseInfo;
 import cc.mrbird.febs.cos.service.IEnterpriseInfoService;
@@ -26,6 +28,8 @@ public class EnterpriseInfoController {
 
     private final IEnterpriseInfoService enterpriseInfoService;
 
+    private final ImportJobService importJobService;
+
     /**
      * 分页获取企业信息
      *
@@ -66,20 +70,11 @@ public class EnterpriseInfoController {
     }
 
     /**
-     * 导入企业信息列表
+     * 导入企业信息列表，返回导入任务编号
      */
     @PostMapping("/import")
-    public R importExcel(@RequestParam("file") MultipartFile file) {
-        try {
-            String errorMsg = enterpriseInfoService.importExcel(file);
-            if (StrUtil.isNotEmpty(errorMsg)) {
-                return R.error(errorMsg);
-            }
-            return R.ok();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return R.error("导入异常");
+    public R importExcel(@RequestParam("file") MultipartFile file) throws FebsException {
+        return R.ok(importJobService.submit(file, enterpriseInfoService::importExcel));
     }
 
     @GetMapping("/{id}")
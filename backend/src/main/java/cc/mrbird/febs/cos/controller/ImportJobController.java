@@ -0,0 +1,35 @@
+package cc.mrbird.febs.cos.controller;
+
+
+import cc.mrbird.febs.common.domain.ImportProgress;
+import cc.mrbird.febs.common.service.ImportJobService;
+import cc.mrbird.febs.common.utils.R;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * @author FanK
+ */
+@RestController
+@RequestMapping("/cos/import")
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class ImportJobController {
+
+    private final ImportJobService importJobService;
+
+    /**
+     * 获取导入任务进度
+     *
+     * @param id 任务编号
+     * @return 已处理行数、错误行数、每秒处理行数等
+     */
+    @GetMapping("/jobs/{id}")
+    public R job(@PathVariable("id") String id) {
+        ImportProgress progress = importJobService.get(id);
+        if (progress == null) {
+            return R.error("导入任务不存在或已过期");
+        }
+        return R.ok(progress);
+    }
+}
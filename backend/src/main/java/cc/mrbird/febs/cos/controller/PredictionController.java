@@ -1,13 +1,20 @@
 package cc.mrbird.febs.cos.controller;
 
+import cc.mrbird.febs.common.exception.FebsException;
 import cc.mrbird.febs.common.utils.R;
 import cc.mrbird.febs.cos.service.IPredictionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 @RestController
 @RequestMapping("/cos/prediction")
@@ -16,19 +23,49 @@ public class PredictionController {
 
     private final IPredictionService predictionService;
 
+    private final ObjectMapper objectMapper;
+
     /**
      * 预测出库量
+     *
+     * @param engine 预测模型 holt-winters/arima/rnn，默认 holt-winters
      */
     @GetMapping("/sales")
-    public R predictSales(@RequestParam String name, @RequestParam Integer typeId) {
-        return R.ok(predictionService.predictSales(name, typeId));
+    public R predictSales(@RequestParam String name, @RequestParam Integer typeId, @RequestParam(required = false) String engine) throws FebsException {
+        return R.ok(predictionService.predictSales(name, typeId, engine));
     }
 
     /**
      * 预测库存需求
+     *
+     * @param engine 预测模型 holt-winters/arima/rnn，默认 holt-winters
      */
     @GetMapping("/inventory")
-    public R predictInventory(@RequestParam String name, @RequestParam Integer typeId) {
-        return R.ok(predictionService.predictInventoryDemand(name, typeId));
+    public R predictInventory(@RequestParam String name, @RequestParam Integer typeId, @RequestParam(required = false) String engine) throws FebsException {
+        return R.ok(predictionService.predictInventoryDemand(name, typeId, engine));
+    }
+
+    /**
+     * 批量预测所有物品出库量，每行返回一个物品的预测结果
+     *
+     * @param engine 预测模型 holt-winters/arima/rnn，默认 holt-winters
+     */
+    @GetMapping(value = "/batch", produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    public StreamingResponseBody predictBatch(@RequestParam(required = false) String engine) {
+        return outputStream -> {
+            try {
+                predictionService.predictSalesBatch(engine, result -> {
+                    try {
+                        outputStream.write(objectMapper.writeValueAsBytes(result));
+                        outputStream.write('\n');
+                        outputStream.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (FebsException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        };
     }
 }
@@ -3,6 +3,7 @@ package cc.mrbird.febs.cos.controller;
 
 import cc.mrbird.febs.common.utils.R;
 import cc.mrbird.febs.cos.entity.ReplenishmentInfo;
+import cc.mrbird.febs.cos.entity.ReplenishmentLine;
 import cc.mrbird.febs.cos.service.IReplenishmentInfoService;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
@@ -39,12 +40,13 @@ public class ReplenishmentInfoController {
     /**
      * 查询补货信息库存
      *
-     * @param id 补货信息ID
+     * @param page 分页对象
+     * @param id   补货信息ID
      * @return 结果
      */
     @GetMapping("/inventory/{id}")
-    public R selectReplenishmentInventory(@PathVariable("id") Integer id) throws Exception {
-        return R.ok(replenishmentInfoService.selectReplenishmentInventory(id));
+    public R selectReplenishmentInventory(Page<ReplenishmentLine> page, @PathVariable("id") Integer id) throws Exception {
+        return R.ok(replenishmentInfoService.selectReplenishmentInventory(page, id));
     }
 
     /**
@@ -1,6 +1,7 @@
 package cc.mrbird.febs.cos.controller;
 
 
+import cc.mrbird.febs.common.exception.FebsException;
 import cc.mrbird.febs.common.utils.R;
 import cc.mrbird.febs.cos.entity.EnterpriseInfo;
 import cc.mrbird.febs.cos.entity.GoodsBelong;
@@ -113,7 +114,7 @@ public class RequestSupplyInfoController {
      * @return 结果
      */
     @GetMapping("/rurchasePut/{id}")
-    public R rurchasePut(@PathVariable("id") Integer id) {
+    public R rurchasePut(@PathVariable("id") Integer id) throws FebsException {
         RequestSupplyInfo requestSupplyInfo = requestSupplyInfoService.getById(id);
         return R.ok(requestSupplyInfoService.rurchasePut(requestSupplyInfo));
     }
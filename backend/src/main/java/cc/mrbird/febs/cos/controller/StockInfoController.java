@@ -1,6 +1,9 @@
 package cc.mrbird.febs.cos.controller;
 
 
+import cc.mrbird.febs.common.exception.FebsException;
+import cc.mrbird.febs.common.service.ImportJobService;
+import cc.mrbird.febs.common.task.StockRollupTask;
 import cc.mrbird.febs.common.utils.FileDownloadUtils;
 import cc.mrbird.febs.common.utils.R;
 import cc.mrbird.febs.cos.entity.ConsumableType;
@@ -8,7 +11,6 @@ import cc.mrbird.febs.cos.entity.StockInfo;
 import cc.mrbird.febs.cos.service.IConsumableTypeService;
 import cc.mrbird.febs.cos.service.IStockInfoService;
 import cc.mrbird.febs.cos.service.IStockPutService;
-import cn.hutool.core.util.StrUtil;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import lombok.RequiredArgsConstructor;
@@ -32,10 +34,14 @@ public class StockInfoController {
 
     private final IStockInfoService stockInfoService;
 
+    private final ImportJobService importJobService;
+
     private final IStockPutService stockPutService;
 
     private final IConsumableTypeService consumableTypeService;
 
+    private final StockRollupTask stockRollupTask;
+
     /**
      * 获取所有库存信息
      *
@@ -75,20 +81,11 @@ public class StockInfoController {
     }
 
     /**
-     * 导入信息列表
+     * 导入信息列表，返回导入任务编号
      */
     @PostMapping("/import")
-    public R importExcel(@RequestParam("file") MultipartFile file) {
-        try {
-            String errorMsg = stockInfoService.importExcel(file);
-            if (StrUtil.isNotEmpty(errorMsg)) {
-                return R.error(errorMsg);
-            }
-            return R.ok();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return R.error("导入异常");
+    public R importExcel(@RequestParam("file") MultipartFile file) throws FebsException {
+        return R.ok(importJobService.submit(file, stockInfoService::importExcel));
     }
 
     /**
@@ -112,7 +109,7 @@ public class StockInfoController {
      * @return
      */
     @PostMapping("/put")
-    public R put(String goods, String custodian, String putUser, String content, BigDecimal price) {
+    public R put(String goods, String custodian, String putUser, String content, BigDecimal price) throws FebsException {
         return R.ok(stockInfoService.stockPut(goods, custodian, putUser, content, price));
     }
 
@@ -161,6 +158,20 @@ public class StockInfoController {
         return R.ok(stockInfoService.selectBoard());
     }
 
+    /**
+     * 由全部出入库记录重建每日出入库汇总，按天分别提交
+     *
+     * @return 重建后的汇总行数
+     */
+    @PostMapping("/rollup/rebuild")
+    public R rebuildRollup() {
+        int rows = stockRollupTask.rebuildAll();
+        if (rows < 0) {
+            return R.error("汇总正在重建，请稍后再试");
+        }
+        return R.ok(rows);
+    }
+
     /**
      * 添加库房信息
      *
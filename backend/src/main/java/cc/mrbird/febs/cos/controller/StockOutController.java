@@ -1,6 +1,7 @@
 package cc.mrbird.febs.cos.controller;
 
 
+import cc.mrbird.febs.common.exception.FebsException;
 import cc.mrbird.febs.common.utils.R;
 import cc.mrbird.febs.cos.entity.GoodsRequest;
 import cc.mrbird.febs.cos.entity.StockOut;
@@ -36,9 +37,10 @@ public class StockOutController {
      * @return
      */
     @PostMapping("/stockOut")
-    public R stockOut(StockOut stockOut) {
+    public R stockOut(StockOut stockOut) throws FebsException {
+        Boolean result = stockOutService.stockOut(stockOut);
         goodsRequestService.update(Wrappers.<GoodsRequest>lambdaUpdate().set(GoodsRequest::getStep, 1).eq(GoodsRequest::getId, stockOut.getApplyId()));
-        return R.ok(stockOutService.stockOut(stockOut));
+        return R.ok(result);
     }
 
     /**
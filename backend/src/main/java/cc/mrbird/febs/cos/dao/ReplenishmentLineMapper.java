@@ -0,0 +1,33 @@
+package cc.mrbird.febs.cos.dao;
+
+import cc.mrbird.febs.cos.entity.ReplenishmentLine;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * @author FanK
+ */
+public interface ReplenishmentLineMapper extends BaseMapper<ReplenishmentLine> {
+
+    /**
+     * 批量添加补货明细
+     *
+     * @param list 补货明细
+     * @return 影响行数
+     */
+    int insertBatch(@Param("list") List<ReplenishmentLine> list);
+
+    /**
+     * 分页查询补货明细及当前库存、在途采购数量
+     *
+     * @param page            分页对象
+     * @param replenishmentId 补货通知ID
+     * @return 结果
+     */
+    IPage<LinkedHashMap<String, Object>> selectInventoryPage(Page<ReplenishmentLine> page, @Param("replenishmentId") Integer replenishmentId);
+}
@@ -0,0 +1,60 @@
+package cc.mrbird.febs.cos.dao;
+
+import cc.mrbird.febs.cos.entity.StockBoardCount;
+import cc.mrbird.febs.cos.entity.StockDailyRollup;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * @author FanK
+ */
+public interface StockDailyRollupMapper extends BaseMapper<StockDailyRollup> {
+
+    /**
+     * 批量累加每日出入库汇总
+     *
+     * @param list 汇总增量
+     * @return 影响行数
+     */
+    int upsertBatch(@Param("list") List<StockDailyRollup> list);
+
+    /**
+     * 删除指定日期的出入库汇总
+     *
+     * @param day 日期（yyyy-MM-dd）
+     * @return 影响行数
+     */
+    int deleteByDay(@Param("day") String day);
+
+    /**
+     * 由指定日期的出入库记录重建当日汇总
+     *
+     * @param day 日期（yyyy-MM-dd）
+     * @return 影响行数
+     */
+    int rebuildDay(@Param("day") String day);
+
+    /**
+     * 查询最早一条出入库记录的日期
+     *
+     * @return 日期（yyyy-MM-dd），无记录时为 null
+     */
+    String selectFirstDay();
+
+    /**
+     * 统计看板按物品类型汇总出入库明细条数
+     *
+     * @return 各类型入库、出库记录数
+     */
+    List<StockBoardCount> selectBoardCount();
+
+    /**
+     * 查询指定日期起各库房物品的每日出库量
+     *
+     * @param start 开始日期
+     * @return 每日出库量（day、stockRowId、quantity）
+     */
+    List<StockDailyRollup> selectOutSeries(@Param("start") String start);
+}
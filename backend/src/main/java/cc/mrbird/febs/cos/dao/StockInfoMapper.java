@@ -2,12 +2,14 @@ package cc.mrbird.febs.cos.dao;
 
 import cc.mrbird.febs.cos.entity.Inventory;
 import cc.mrbird.febs.cos.entity.Sale;
+import cc.mrbird.febs.cos.entity.StockBoardCount;
 import cc.mrbird.febs.cos.entity.StockInfo;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 
@@ -17,15 +19,15 @@ import java.util.List;
 public interface StockInfoMapper extends BaseMapper<StockInfo> {
 
     // 分页获取库房信息
-    IPage<LinkedHashMap<String, Object>> stockInfoByPage(Page page, @Param("stockInfo") StockInfo stockInfo);
+    IPage<LinkedHashMap<String, Object>> stockInfoByPage(Page page, @Param("stockInfo") StockInfo stockInfo, @Param("nameIds") Collection<Integer> nameIds, @Param("modelIds") Collection<Integer> modelIds);
 
-    List<LinkedHashMap<String, Object>> stockInfoByList(@Param("stockInfo") StockInfo stockInfo);
+    List<LinkedHashMap<String, Object>> stockInfoByList(@Param("stockInfo") StockInfo stockInfo, @Param("nameIds") Collection<Integer> nameIds, @Param("modelIds") Collection<Integer> modelIds);
 
     // 分页获取物品出入库详情
-    IPage<LinkedHashMap<String, Object>> stockInfoDetailPage(Page page, @Param("stockInfo") StockInfo stockInfo);
+    IPage<LinkedHashMap<String, Object>> stockInfoDetailPage(Page page, @Param("stockInfo") StockInfo stockInfo, @Param("nameIds") Collection<Integer> nameIds, @Param("modelIds") Collection<Integer> modelIds);
 
     // 根号用户ID获取领取耗材
-    IPage<LinkedHashMap<String, Object>> getGoodsPutByUserId(Page page, @Param("stockInfo") StockInfo stockInfo);
+    IPage<LinkedHashMap<String, Object>> getGoodsPutByUserId(Page page, @Param("stockInfo") StockInfo stockInfo, @Param("nameIds") Collection<Integer> nameIds, @Param("modelIds") Collection<Integer> modelIds);
 
     // 入库统计
     List<LinkedHashMap<String, Object>> stockPutRate();
@@ -45,18 +47,74 @@ public interface StockInfoMapper extends BaseMapper<StockInfo> {
     /**
      * 获取历史出库数据
      *
-     * @param name   物品名称
-     * @param typeId 物品类型ID
+     * @param name    物品名称
+     * @param typeId  物品类型ID
+     * @param nameIds 名称索引命中的库房数据ID，为 null 时按名称模糊查询
      * @return 预测结果
      */
-    List<Sale> getHistoricalSales(String name, Integer typeId);
+    List<Sale> getHistoricalSales(@Param("name") String name, @Param("typeId") Integer typeId, @Param("nameIds") Collection<Integer> nameIds);
+
+    /**
+     * 按物品分组获取所有物品的历史出库数据
+     *
+     * @param days 统计天数
+     * @return 每个物品每天的出库数量
+     */
+    List<Sale> getHistoricalSalesGroup(@Param("days") Integer days);
+
+    /**
+     * 按物品类型统计库房物品数与总价，只扫描库房数据
+     *
+     * @return 物品类型计数
+     */
+    List<StockBoardCount> selectStockBoardCount();
+
+    /**
+     * 获取最大的库房数据ID（含出入库记录），只读主键索引
+     *
+     * @return 最大ID，无数据时为 null
+     */
+    Integer selectMaxId();
 
     /**
      * 获取历史库存数据
      *
-     * @param name   物品名称
-     * @param typeId 物品类型ID
+     * @param name    物品名称
+     * @param typeId  物品类型ID
+     * @param nameIds 名称索引命中的库房数据ID，为 null 时按名称模糊查询
      * @return 预测结果
      */
-    List<Inventory> getHistoricalInventory(String name, Integer typeId);
+    List<Inventory> getHistoricalInventory(@Param("name") String name, @Param("typeId") Integer typeId, @Param("nameIds") Collection<Integer> nameIds);
+
+    /**
+     * 按物品名称与类型批量获取库房数据
+     *
+     * @param keys 物品名称与类型
+     * @return 库房数据
+     */
+    List<StockInfo> selectStockByKeys(@Param("keys") Collection<StockInfo> keys);
+
+    /**
+     * 批量添加库房数据（回填主键）
+     *
+     * @param list 库房数据
+     * @return 影响行数
+     */
+    int insertStockBatch(List<StockInfo> list);
+
+    /**
+     * 按库房ID批量增加库存数量
+     *
+     * @param list 库房ID与增加数量
+     * @return 影响行数
+     */
+    int batchAddAmount(@Param("list") List<StockInfo> list);
+
+    /**
+     * 扣减库存数量，库存不足时不做修改
+     *
+     * @param stockInfo 库房ID与扣减数量
+     * @return 影响行数
+     */
+    int decreaseAmount(StockInfo stockInfo);
 }
@@ -0,0 +1,68 @@
+package cc.mrbird.febs.cos.entity;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 库存过账单据
+ *
+ * @author FanK
+ */
+@Data
+@Accessors(chain = true)
+public class LedgerDocument implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 入库
+     */
+    public static final String PUT = "PUT";
+
+    /**
+     * 出库
+     */
+    public static final String OUT = "OUT";
+
+    /**
+     * 采购申请入库
+     */
+    public static final String RUR = "RUR";
+
+    /**
+     * 供应采购入库
+     */
+    public static final String RS = "RS";
+
+    /**
+     * 单据来源 PUT.入库 OUT.出库 RUR.采购申请入库 RS.供应采购入库
+     */
+    private String source;
+
+    /**
+     * 出/入库单号
+     */
+    private String num;
+
+    /**
+     * 出库到哪个用户
+     */
+    private Integer toUserId;
+
+    /**
+     * 物品明细
+     */
+    private List<GoodsBelong> goods;
+
+    /**
+     * 是否为出库单据
+     *
+     * @return 结果
+     */
+    public boolean isOut() {
+        return OUT.equals(source);
+    }
+}
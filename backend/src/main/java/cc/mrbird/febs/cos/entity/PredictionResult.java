@@ -8,9 +8,13 @@ import java.util.Map;
 
 @Data
 public class PredictionResult {
+    private String name;                   // 物品名称
+    private Integer typeId;                // 物品类型ID
     private List<Double> predictedValues;  // 预测值列表
     private List<String> dates;            // 对应日期
     private Double confidence;             // 预测置信度
+    private List<Double> lowerBounds;      // 置信区间下限
+    private List<Double> upperBounds;      // 置信区间上限
     private String modelVersion;           // 模型版本
     private Date createTime;               // 创建时间
     private Map<String, List<Double>> drugPredictions;
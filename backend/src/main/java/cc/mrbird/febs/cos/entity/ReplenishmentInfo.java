@@ -49,7 +49,7 @@ public class ReplenishmentInfo implements Serializable {
     private Integer status;
 
     /**
-     * 补货信息
+     * 补货信息（JSON，仅历史数据，新通知的明细见 replenishment_line）
      */
     private String replenishment;
 
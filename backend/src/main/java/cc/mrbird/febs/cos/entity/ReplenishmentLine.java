@@ -0,0 +1,99 @@
+package cc.mrbird.febs.cos.entity;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+
+/**
+ * 补货明细
+ *
+ * @author FanK
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@Accessors(chain = true)
+public class ReplenishmentLine implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Integer id;
+
+    /**
+     * 补货通知ID
+     */
+    private Integer replenishmentId;
+
+    /**
+     * 库房数据ID
+     */
+    private Integer stockRowId;
+
+    /**
+     * 物品名称
+     */
+    private String name;
+
+    /**
+     * 物品类型ID
+     */
+    private Integer typeId;
+
+    /**
+     * 型号
+     */
+    private String model;
+
+    /**
+     * 单位
+     */
+    private String unit;
+
+    /**
+     * 单价
+     */
+    private BigDecimal price;
+
+    /**
+     * 评估时库存
+     */
+    private Integer onHand;
+
+    /**
+     * 提前期内预测需求
+     */
+    private BigDecimal forecastDemand;
+
+    /**
+     * 安全库存
+     */
+    private BigDecimal safetyStock;
+
+    /**
+     * 再订货点
+     */
+    private BigDecimal reorderPoint;
+
+    /**
+     * 建议补货数量
+     */
+    private Integer quantity;
+
+    /**
+     * 提前期（天）
+     */
+    private Integer leadTime;
+
+    /**
+     * 评估时间
+     */
+    private String createDate;
+}
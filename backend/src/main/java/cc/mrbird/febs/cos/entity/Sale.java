@@ -7,4 +7,7 @@ public class Sale {
 
     private Integer quantity;
     private String date;
+
+    private String name;
+    private Integer typeId;
 }
@@ -0,0 +1,46 @@
+package cc.mrbird.febs.cos.entity;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+
+/**
+ * 统计看板物品类型计数
+ *
+ * @author FanK
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@Accessors(chain = true)
+public class StockBoardCount implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 物品类型ID
+     */
+    private Integer typeId;
+
+    /**
+     * 入库记录数
+     */
+    private Long putCount = 0L;
+
+    /**
+     * 出库记录数
+     */
+    private Long outCount = 0L;
+
+    /**
+     * 库房物品数
+     */
+    private Long stockCount = 0L;
+
+    /**
+     * 库房物品总价
+     */
+    private BigDecimal stockValue = BigDecimal.ZERO;
+}
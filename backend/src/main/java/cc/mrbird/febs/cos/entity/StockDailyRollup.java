@@ -0,0 +1,56 @@
+package cc.mrbird.febs.cos.entity;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+
+/**
+ * 每日出入库汇总
+ *
+ * @author FanK
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@Accessors(chain = true)
+public class StockDailyRollup implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 日期
+     */
+    private String day;
+
+    /**
+     * 库房数据ID
+     */
+    private Integer stockRowId;
+
+    /**
+     * 物品类型ID
+     */
+    private Integer typeId;
+
+    /**
+     * 方向 1.入库 2.出库
+     */
+    private Integer direction;
+
+    /**
+     * 明细条数
+     */
+    private Integer records;
+
+    /**
+     * 数量
+     */
+    private Integer quantity;
+
+    /**
+     * 金额
+     */
+    private BigDecimal value;
+}
@@ -1,8 +1,8 @@
 package cc.mrbird.febs.cos.entity;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
 import java.io.Serializable;
+import java.util.Date;
 
 import com.baomidou.mybatisplus.annotation.IdType;
 import com.baomidou.mybatisplus.annotation.TableField;
@@ -10,6 +10,7 @@ import com.baomidou.mybatisplus.annotation.TableId;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.experimental.Accessors;
+import org.springframework.format.annotation.DateTimeFormat;
 
 /**
  * 库房管理
@@ -63,7 +64,8 @@ public class StockInfo implements Serializable {
     /**
      * 出/入库时间
      */
-    private String createDate;
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private Date createDate;
 
     /**
      * 是否是库房数据 0.库房数据 1.入库数据 2.出库数据
@@ -91,4 +93,10 @@ public class StockInfo implements Serializable {
     @TableField(exist = false)
     private String typeName;
 
+    @TableField(exist = false)
+    private String createTimeFrom;
+
+    @TableField(exist = false)
+    private String createTimeTo;
+
 }
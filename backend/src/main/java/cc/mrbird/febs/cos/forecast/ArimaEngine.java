@@ -0,0 +1,104 @@
+package cc.mrbird.febs.cos.forecast;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * ARIMA(p,1,0) 模型，一阶差分后以 Yule-Walker 方程（Levinson-Durbin 递推）估计自回归系数
+ *
+ * @author FanK
+ */
+@Component
+public class ArimaEngine implements ForecastEngine {
+
+    public static final String NAME = "arima";
+
+    /**
+     * 最大自回归阶数
+     */
+    private static final int MAX_ORDER = 3;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void forecast(double[] history, int length, int horizon, double[] point, double[] stdErr) {
+        if (length < 5) {
+            double last = length == 0 ? 0.0 : history[length - 1];
+            for (int h = 0; h < horizon; h++) {
+                point[h] = last;
+                stdErr[h] = 0.0;
+            }
+            return;
+        }
+        // 一阶差分的均值作为漂移项
+        int m = length - 1;
+        double drift = 0.0;
+        for (int t = 0; t < m; t++) {
+            drift += history[t + 1] - history[t];
+        }
+        drift /= m;
+        int order = Math.max(1, Math.min(MAX_ORDER, m / 4));
+
+        // 差分序列的自协方差
+        double[] acov = new double[order + 1];
+        for (int k = 0; k <= order; k++) {
+            double sum = 0.0;
+            for (int t = k; t < m; t++) {
+                sum += (history[t + 1] - history[t] - drift) * (history[t + 1 - k] - history[t - k] - drift);
+            }
+            acov[k] = sum / m;
+        }
+
+        // Levinson-Durbin 递推求自回归系数与新息方差
+        double[] phi = new double[order + 1];
+        double[] prev = new double[order + 1];
+        double variance = acov[0];
+        if (variance > 0) {
+            for (int k = 1; k <= order; k++) {
+                double num = acov[k];
+                for (int j = 1; j < k; j++) {
+                    num -= prev[j] * acov[k - j];
+                }
+                double reflection = num / variance;
+                phi[k] = reflection;
+                for (int j = 1; j < k; j++) {
+                    phi[j] = prev[j] - reflection * prev[k - j];
+                }
+                variance *= 1.0 - reflection * reflection;
+                System.arraycopy(phi, 1, prev, 1, k);
+            }
+        }
+
+        // 最近 order 个差分值，环形缓冲
+        double[] lag = new double[order];
+        for (int i = 0; i < order; i++) {
+            lag[i] = history[m - i] - history[m - i - 1] - drift;
+        }
+        // psi 为差分序列的 MA(∞) 权重，psiSum 为其累加（对应原序列）
+        double[] psi = new double[horizon];
+        double level = history[length - 1];
+        double psiSum = 0.0;
+        double cumulative = 0.0;
+        int head = 0;
+        for (int h = 0; h < horizon; h++) {
+            double next = 0.0;
+            for (int i = 1; i <= order; i++) {
+                next += phi[i] * lag[(head + i - 1) % order];
+            }
+            head = (head + order - 1) % order;
+            lag[head] = next;
+            level += next + drift;
+            point[h] = level;
+
+            psi[h] = h == 0 ? 1.0 : 0.0;
+            for (int i = 1; i <= Math.min(h, order); i++) {
+                psi[h] += phi[i] * psi[h - i];
+            }
+            psiSum += psi[h];
+            cumulative += psiSum * psiSum;
+            stdErr[h] = Math.sqrt(Math.max(variance, 0.0) * cumulative);
+        }
+    }
+}
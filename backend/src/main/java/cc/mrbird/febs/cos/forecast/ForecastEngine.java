@@ -0,0 +1,27 @@
+package cc.mrbird.febs.cos.forecast;
+
+/**
+ * 时间序列预测模型
+ *
+ * @author FanK
+ */
+public interface ForecastEngine {
+
+    /**
+     * 模型名称，按请求选择模型时使用
+     *
+     * @return 模型名称
+     */
+    String name();
+
+    /**
+     * 基于历史数据向后预测，结果写入调用方提供的缓冲区
+     *
+     * @param history 历史数据
+     * @param length  历史数据有效长度
+     * @param horizon 预测天数
+     * @param point   预测值，长度不小于 horizon
+     * @param stdErr  各预测值的标准误差，长度不小于 horizon
+     */
+    void forecast(double[] history, int length, int horizon, double[] point, double[] stdErr);
+}
@@ -0,0 +1,131 @@
+package cc.mrbird.febs.cos.forecast;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Holt-Winters 加法指数平滑，历史数据不足两个周期时退化为 Holt 线性趋势模型
+ *
+ * @author FanK
+ */
+@Component
+public class HoltWintersEngine implements ForecastEngine {
+
+    public static final String NAME = "holt-winters";
+
+    /**
+     * 季节周期（按周）
+     */
+    private static final int PERIOD = 7;
+
+    private static final double[] ALPHA_GRID = {0.1, 0.3, 0.5, 0.7, 0.9};
+
+    private static final double[] BETA_GRID = {0.01, 0.05, 0.1, 0.2, 0.3};
+
+    private static final double[] GAMMA_GRID = {0.05, 0.1, 0.3, 0.5};
+
+    private static final double[] NO_GAMMA = {0.0};
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void forecast(double[] history, int length, int horizon, double[] point, double[] stdErr) {
+        if (length < 2) {
+            double last = length == 0 ? 0.0 : history[0];
+            for (int h = 0; h < horizon; h++) {
+                point[h] = last;
+                stdErr[h] = 0.0;
+            }
+            return;
+        }
+        boolean seasonal = length >= 2 * PERIOD;
+        double[] season = new double[PERIOD];
+        // state[0] 水平 state[1] 趋势 state[2] 一步预测误差平方和 state[3] 误差个数
+        double[] state = new double[4];
+
+        // 网格搜索平滑参数，以一步预测误差平方和最小为准
+        double bestAlpha = ALPHA_GRID[0], bestBeta = BETA_GRID[0], bestGamma = 0.0;
+        double bestSse = Double.MAX_VALUE;
+        for (double alpha : ALPHA_GRID) {
+            for (double beta : BETA_GRID) {
+                for (double gamma : seasonal ? GAMMA_GRID : NO_GAMMA) {
+                    fit(history, length, alpha, beta, gamma, seasonal, season, state);
+                    if (state[2] < bestSse) {
+                        bestSse = state[2];
+                        bestAlpha = alpha;
+                        bestBeta = beta;
+                        bestGamma = gamma;
+                    }
+                }
+            }
+        }
+        fit(history, length, bestAlpha, bestBeta, bestGamma, seasonal, season, state);
+
+        double level = state[0];
+        double trend = state[1];
+        double variance = state[3] > 0 ? state[2] / state[3] : 0.0;
+        double cumulative = 0.0;
+        for (int h = 1; h <= horizon; h++) {
+            point[h - 1] = level + h * trend + (seasonal ? season[(length + h - 1) % PERIOD] : 0.0);
+            stdErr[h - 1] = Math.sqrt(variance * (1.0 + cumulative));
+            // 加法模型的多步预测方差系数
+            double c = bestAlpha * (1.0 + h * bestBeta) + (seasonal && h % PERIOD == 0 ? bestGamma * (1.0 - bestAlpha) : 0.0);
+            cumulative += c * c;
+        }
+    }
+
+    /**
+     * 按给定参数平滑整段历史数据
+     *
+     * @param y        历史数据
+     * @param n        有效长度
+     * @param alpha    水平平滑系数
+     * @param beta     趋势平滑系数
+     * @param gamma    季节平滑系数
+     * @param seasonal 是否包含季节项
+     * @param season   季节项缓冲区
+     * @param state    水平、趋势、误差平方和、误差个数
+     */
+    private void fit(double[] y, int n, double alpha, double beta, double gamma, boolean seasonal, double[] season, double[] state) {
+        double level;
+        double trend;
+        int start;
+        if (seasonal) {
+            double first = 0.0, second = 0.0;
+            for (int i = 0; i < PERIOD; i++) {
+                first += y[i];
+                second += y[i + PERIOD];
+            }
+            first /= PERIOD;
+            second /= PERIOD;
+            level = first;
+            trend = (second - first) / PERIOD;
+            for (int i = 0; i < PERIOD; i++) {
+                season[i] = y[i] - first;
+            }
+            start = PERIOD;
+        } else {
+            level = y[0];
+            trend = y[1] - y[0];
+            start = 1;
+        }
+        double sse = 0.0;
+        for (int t = start; t < n; t++) {
+            double s = seasonal ? season[t % PERIOD] : 0.0;
+            double error = y[t] - (level + trend + s);
+            sse += error * error;
+            double newLevel = alpha * (y[t] - s) + (1.0 - alpha) * (level + trend);
+            trend = beta * (newLevel - level) + (1.0 - beta) * trend;
+            if (seasonal) {
+                season[t % PERIOD] = gamma * (y[t] - newLevel) + (1.0 - gamma) * s;
+            }
+            level = newLevel;
+        }
+        state[0] = level;
+        state[1] = trend;
+        state[2] = sse;
+        state[3] = n - start;
+    }
+}
@@ -0,0 +1,194 @@
+package cc.mrbird.febs.cos.forecast;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 单隐层循环神经网络（Elman RNN），按请求在归一化后的历史数据上以 BPTT 训练后自回归预测
+ *
+ * @author FanK
+ */
+@Component
+public class RecurrentEngine implements ForecastEngine {
+
+    public static final String NAME = "rnn";
+
+    /**
+     * 隐层神经元个数
+     */
+    private static final int HIDDEN = 8;
+
+    private static final int EPOCHS = 300;
+
+    private static final double LEARNING_RATE = 0.05;
+
+    /**
+     * 梯度裁剪阈值
+     */
+    private static final double CLIP = 1.0;
+
+    private static final long SEED = 42L;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void forecast(double[] history, int length, int horizon, double[] point, double[] stdErr) {
+        double min = Double.MAX_VALUE, max = -Double.MAX_VALUE;
+        for (int t = 0; t < length; t++) {
+            min = Math.min(min, history[t]);
+            max = Math.max(max, history[t]);
+        }
+        double range = max - min;
+        if (length < 3 || range == 0) {
+            double last = length == 0 ? 0.0 : history[length - 1];
+            for (int h = 0; h < horizon; h++) {
+                point[h] = last;
+                stdErr[h] = 0.0;
+            }
+            return;
+        }
+
+        // 归一化到 [0,1]
+        double[] z = new double[length];
+        for (int t = 0; t < length; t++) {
+            z[t] = (history[t] - min) / range;
+        }
+
+        // 参数：输入权重、循环权重（行优先）、隐层偏置、输出权重、输出偏置
+        Random random = new Random(SEED);
+        double[] wx = new double[HIDDEN];
+        double[] wh = new double[HIDDEN * HIDDEN];
+        double[] bh = new double[HIDDEN];
+        double[] wy = new double[HIDDEN];
+        double[] by = new double[1];
+        for (int i = 0; i < HIDDEN; i++) {
+            wx[i] = random.nextGaussian() * 0.3;
+            wy[i] = random.nextGaussian() * 0.3;
+            for (int j = 0; j < HIDDEN; j++) {
+                wh[i * HIDDEN + j] = random.nextGaussian() * 0.1;
+            }
+        }
+
+        // 训练缓冲区，整个训练过程复用
+        int steps = length - 1;
+        double[] hs = new double[(steps + 1) * HIDDEN];
+        double[] ys = new double[steps];
+        double[] gwx = new double[HIDDEN];
+        double[] gwh = new double[HIDDEN * HIDDEN];
+        double[] gbh = new double[HIDDEN];
+        double[] gwy = new double[HIDDEN];
+        double[] gby = new double[1];
+        double[] dhNext = new double[HIDDEN];
+        double[] da = new double[HIDDEN];
+
+        double mse = 0.0;
+        for (int epoch = 0; epoch < EPOCHS; epoch++) {
+            // 前向传播，hs 第 0 段为初始隐状态
+            mse = 0.0;
+            for (int t = 0; t < steps; t++) {
+                step(z[t], hs, t * HIDDEN, hs, (t + 1) * HIDDEN, wx, wh, bh);
+                ys[t] = output(hs, (t + 1) * HIDDEN, wy, by);
+                double error = ys[t] - z[t + 1];
+                mse += error * error;
+            }
+            mse /= steps;
+
+            // 沿时间反向传播
+            Arrays.fill(gwx, 0.0);
+            Arrays.fill(gwh, 0.0);
+            Arrays.fill(gbh, 0.0);
+            Arrays.fill(gwy, 0.0);
+            Arrays.fill(dhNext, 0.0);
+            gby[0] = 0.0;
+            for (int t = steps - 1; t >= 0; t--) {
+                int cur = (t + 1) * HIDDEN;
+                int prv = t * HIDDEN;
+                double dy = 2.0 * (ys[t] - z[t + 1]) / steps;
+                gby[0] += dy;
+                for (int i = 0; i < HIDDEN; i++) {
+                    gwy[i] += dy * hs[cur + i];
+                    double h = hs[cur + i];
+                    da[i] = (wy[i] * dy + dhNext[i]) * (1.0 - h * h);
+                    gbh[i] += da[i];
+                    gwx[i] += da[i] * z[t];
+                }
+                for (int j = 0; j < HIDDEN; j++) {
+                    double sum = 0.0;
+                    for (int i = 0; i < HIDDEN; i++) {
+                        gwh[i * HIDDEN + j] += da[i] * hs[prv + j];
+                        sum += wh[i * HIDDEN + j] * da[i];
+                    }
+                    dhNext[j] = sum;
+                }
+            }
+
+            // 梯度裁剪后更新参数
+            double norm = gby[0] * gby[0] + squared(gwx) + squared(gwh) + squared(gbh) + squared(gwy);
+            double scale = norm > CLIP * CLIP ? LEARNING_RATE * CLIP / Math.sqrt(norm) : LEARNING_RATE;
+            by[0] -= scale * gby[0];
+            update(wx, gwx, scale);
+            update(wh, gwh, scale);
+            update(bh, gbh, scale);
+            update(wy, gwy, scale);
+        }
+
+        // 用训练后的网络跑完整段历史，再自回归预测
+        double[] h = new double[HIDDEN * 2];
+        int cur = 0;
+        for (int t = 0; t < length; t++) {
+            step(z[t], h, cur, h, HIDDEN - cur, wx, wh, bh);
+            cur = HIDDEN - cur;
+        }
+        double sigma = Math.sqrt(mse) * range;
+        for (int k = 0; k < horizon; k++) {
+            double next = output(h, cur, wy, by);
+            point[k] = next * range + min;
+            stdErr[k] = sigma * Math.sqrt(k + 1.0);
+            step(next, h, cur, h, HIDDEN - cur, wx, wh, bh);
+            cur = HIDDEN - cur;
+        }
+    }
+
+    /**
+     * 单步隐状态更新 h' = tanh(wx * x + wh * h + bh)
+     */
+    private void step(double x, double[] in, int inOffset, double[] out, int outOffset, double[] wx, double[] wh, double[] bh) {
+        for (int i = 0; i < HIDDEN; i++) {
+            double a = bh[i] + wx[i] * x;
+            for (int j = 0; j < HIDDEN; j++) {
+                a += wh[i * HIDDEN + j] * in[inOffset + j];
+            }
+            out[outOffset + i] = Math.tanh(a);
+        }
+    }
+
+    /**
+     * 输出层 y = wy * h + by
+     */
+    private double output(double[] h, int offset, double[] wy, double[] by) {
+        double y = by[0];
+        for (int i = 0; i < HIDDEN; i++) {
+            y += wy[i] * h[offset + i];
+        }
+        return y;
+    }
+
+    private double squared(double[] values) {
+        double sum = 0.0;
+        for (double value : values) {
+            sum += value * value;
+        }
+        return sum;
+    }
+
+    private void update(double[] weights, double[] gradients, double scale) {
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] -= scale * gradients[i];
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package cc.mrbird.febs.cos.manager;
+
+import cc.mrbird.febs.common.exception.FebsException;
+import cc.mrbird.febs.cos.dao.GoodsBelongMapper;
+import cc.mrbird.febs.cos.dao.StockDailyRollupMapper;
+import cc.mrbird.febs.cos.dao.StockInfoMapper;
+import cc.mrbird.febs.cos.entity.GoodsBelong;
+import cc.mrbird.febs.cos.entity.LedgerDocument;
+import cc.mrbird.febs.cos.entity.StockBoardCount;
+import cc.mrbird.febs.cos.entity.StockDailyRollup;
+import cc.mrbird.febs.cos.entity.StockInfo;
+import cn.hutool.core.collection.CollectionUtil;
+import cn.hutool.core.date.DateUtil;
+import cn.hutool.core.util.NumberUtil;
+import com.baomidou.mybatisplus.core.toolkit.StringPool;
+import com.baomidou.mybatisplus.extension.toolkit.SqlHelper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.SqlSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 库存台账，所有出入库单据统一在此过账
+ *
+ * @author FanK
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class InventoryLedger {
+
+    private final StockInfoMapper stockInfoMapper;
+
+    private final StockDailyRollupMapper stockDailyRollupMapper;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    /**
+     * 单据过账：按库房ID批量变更库存，批量写入出入库记录与所属信息，累加每日出入库汇总，
+     * 并在提交后通知统计看板
+     *
+     * @param document 出入库单据
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void post(LedgerDocument document) throws FebsException {
+        if (CollectionUtil.isEmpty(document.getGoods())) {
+            return;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Date now = new Date();
+        String createDate = DateUtil.formatDateTime(now);
+        // 物品明细对应的库房数据
+        StockPostedEvent event = new StockPostedEvent();
+        Map<GoodsBelong, StockInfo> stockMap = document.isOut() ? this.postOut(document.getGoods()) : this.postIn(document.getGoods(), now, event);
+
+        // 添加出入库记录与所属信息
+        try (SqlSession batchSqlSession = SqlHelper.sqlSessionBatch(StockInfo.class)) {
+            String stockStatement = StockInfoMapper.class.getName() + StringPool.DOT + "insert";
+            String belongStatement = GoodsBelongMapper.class.getName() + StringPool.DOT + "insert";
+            document.getGoods().forEach(item -> {
+                StockInfo record = new StockInfo();
+                record.setParentId(stockMap.get(item).getId());
+                record.setName(item.getName());
+                record.setAmount(item.getAmount());
+                record.setCreateDate(now);
+                record.setType(item.getType());
+                record.setTypeId(item.getTypeId());
+                record.setUnit(item.getUnit());
+                record.setPrice(item.getPrice());
+                record.setIsIn(document.isOut() ? 2 : 1);
+                record.setToUserId(document.isOut() ? document.getToUserId() : null);
+                batchSqlSession.insert(stockStatement, record);
+
+                GoodsBelong goodsBelong = new GoodsBelong();
+                goodsBelong.setNum(document.getNum());
+                goodsBelong.setCreateDate(createDate);
+                goodsBelong.setAmount(item.getAmount());
+                goodsBelong.setName(item.getName());
+                goodsBelong.setPrice(item.getPrice());
+                goodsBelong.setType(item.getType());
+                goodsBelong.setTypeId(item.getTypeId());
+                goodsBelong.setUnit(item.getUnit());
+                batchSqlSession.insert(belongStatement, goodsBelong);
+            });
+            batchSqlSession.flushStatements();
+        }
+        // 累加每日出入库汇总
+        stockDailyRollupMapper.upsertBatch(this.rollup(document, stockMap, createDate));
+        // 统计看板计数增量
+        document.getGoods().forEach(item -> {
+            StockInfo stockInfo = stockMap.get(item);
+            BigDecimal value = NumberUtil.mul(item.getAmount(), stockInfo.getPrice());
+            StockBoardCount recordCount = event.count(item.getTypeId());
+            StockBoardCount stockCount = event.count(stockInfo.getTypeId());
+            if (document.isOut()) {
+                recordCount.setOutCount(recordCount.getOutCount() + 1);
+                stockCount.setStockValue(stockCount.getStockValue().subtract(value));
+            } else {
+                recordCount.setPutCount(recordCount.getPutCount() + 1);
+                stockCount.setStockValue(stockCount.getStockValue().add(value));
+            }
+        });
+        applicationEventPublisher.publishEvent(event);
+        sample.stop(meterRegistry.timer("inventory.ledger.post", "source", document.getSource()));
+        log.debug("单据{}过账完成，共{}条物品明细", document.getNum(), document.getGoods().size());
+    }
+
+    /**
+     * 入库过账，按物品名称与类型合并后一次性变更库存
+     *
+     * @param goods      物品明细
+     * @param createDate 入库时间
+     * @param event      单据过账完成事件，记录新增的库房物品数
+     * @return 物品明细对应的库房数据
+     */
+    private Map<GoodsBelong, StockInfo> postIn(List<GoodsBelong> goods, Date createDate, StockPostedEvent event) {
+        // 合并同一物品的入库数量
+        Map<String, StockInfo> deltaMap = new LinkedHashMap<>();
+        goods.forEach(item -> {
+            StockInfo delta = deltaMap.get(stockKey(item.getName(), item.getTypeId()));
+            if (delta == null) {
+                delta = new StockInfo();
+                delta.setName(item.getName());
+                delta.setTypeId(item.getTypeId());
+                delta.setType(item.getType());
+                delta.setUnit(item.getUnit());
+                delta.setPrice(item.getPrice());
+                delta.setCreateDate(createDate);
+                delta.setAmount(0);
+                deltaMap.put(stockKey(item.getName(), item.getTypeId()), delta);
+            }
+            delta.setAmount(delta.getAmount() + item.getAmount());
+            if (item.getStockId() != null) {
+                delta.setStockId(item.getStockId());
+            }
+        });
+
+        // 一次性获取已存在的库房物品
+        Map<String, StockInfo> stockMap = stockInfoMapper.selectStockByKeys(deltaMap.values()).stream()
+                .collect(Collectors.toMap(e -> stockKey(e.getName(), e.getTypeId()), e -> e, (v1, v2) -> v1));
+        List<StockInfo> updateList = new ArrayList<>();
+        List<StockInfo> insertList = new ArrayList<>();
+        deltaMap.forEach((key, delta) -> {
+            StockInfo stockInfo = stockMap.get(key);
+            if (stockInfo != null) {
+                // 累加数量不改单价，按库房数据原单价计算总价
+                delta.setId(stockInfo.getId());
+                delta.setPrice(stockInfo.getPrice());
+                updateList.add(delta);
+            } else {
+                insertList.add(delta);
+                StockBoardCount stockCount = event.count(delta.getTypeId());
+                stockCount.setStockCount(stockCount.getStockCount() + 1);
+            }
+        });
+        // 更改库房数据
+        if (CollectionUtil.isNotEmpty(updateList)) {
+            stockInfoMapper.batchAddAmount(updateList);
+        }
+        // 重新添加库房数据
+        if (CollectionUtil.isNotEmpty(insertList)) {
+            stockInfoMapper.insertStockBatch(insertList);
+            insertList.forEach(event::addStock);
+        }
+
+        Map<GoodsBelong, StockInfo> result = new IdentityHashMap<>();
+        goods.forEach(item -> result.put(item, deltaMap.get(stockKey(item.getName(), item.getTypeId()))));
+        return result;
+    }
+
+    /**
+     * 出库过账，按物品名称与类型找到库房数据后按库房ID批量扣减库存，库存不足时整单回滚
+     *
+     * @param goods 物品明细
+     * @return 物品明细对应的库房数据
+     */
+    private Map<GoodsBelong, StockInfo> postOut(List<GoodsBelong> goods) throws FebsException {
+        Map<String, StockInfo> keyMap = new LinkedHashMap<>();
+        goods.forEach(item -> keyMap.putIfAbsent(stockKey(item.getName(), item.getTypeId()), new StockInfo().setName(item.getName()).setTypeId(item.getTypeId())));
+        Map<String, StockInfo> stockMap = stockInfoMapper.selectStockByKeys(keyMap.values()).stream()
+                .collect(Collectors.toMap(e -> stockKey(e.getName(), e.getTypeId()), e -> e, (v1, v2) -> v1));
+
+        // 合并同一物品的出库数量
+        Map<Integer, StockInfo> deltaMap = new LinkedHashMap<>();
+        Map<GoodsBelong, StockInfo> result = new IdentityHashMap<>();
+        for (GoodsBelong item : goods) {
+            StockInfo stockInfo = stockMap.get(stockKey(item.getName(), item.getTypeId()));
+            if (stockInfo == null) {
+                throw new FebsException(item.getName() + "库存不存在！");
+            }
+            StockInfo delta = deltaMap.computeIfAbsent(stockInfo.getId(), key -> new StockInfo().setId(key).setName(stockInfo.getName()).setAmount(0));
+            delta.setAmount(delta.getAmount() + item.getAmount());
+            result.put(item, stockInfo);
+        }
+
+        // 更改库房数据
+        List<StockInfo> deltaList = new ArrayList<>(deltaMap.values());
+        List<StockInfo> rejectList = new ArrayList<>();
+        try (SqlSession batchSqlSession = SqlHelper.sqlSessionBatch(StockInfo.class)) {
+            String sqlStatement = StockInfoMapper.class.getName() + StringPool.DOT + "decreaseAmount";
+            deltaList.forEach(delta -> batchSqlSession.update(sqlStatement, delta));
+            int index = 0;
+            for (BatchResult batchResult : batchSqlSession.flushStatements()) {
+                for (int updateCount : batchResult.getUpdateCounts()) {
+                    if (updateCount == 0) {
+                        rejectList.add(deltaList.get(index));
+                    }
+                    index++;
+                }
+            }
+        }
+        if (CollectionUtil.isNotEmpty(rejectList)) {
+            throw new FebsException(rejectList.stream().map(StockInfo::getName).collect(Collectors.joining(StringPool.COMMA)) + "库存不足！");
+        }
+        return result;
+    }
+
+    /**
+     * 按库房数据与物品类型合并单据明细，得到每日出入库汇总增量
+     *
+     * @param document   出入库单据
+     * @param stockMap   物品明细对应的库房数据
+     * @param createDate 过账时间
+     * @return 汇总增量
+     */
+    private List<StockDailyRollup> rollup(LedgerDocument document, Map<GoodsBelong, StockInfo> stockMap, String createDate) {
+        String day = createDate.substring(0, 10);
+        Map<String, StockDailyRollup> rollupMap = new LinkedHashMap<>();
+        document.getGoods().forEach(item -> {
+            Integer stockRowId = stockMap.get(item).getId();
+            StockDailyRollup rollup = rollupMap.computeIfAbsent(stockRowId + ":" + item.getTypeId(), key -> new StockDailyRollup()
+                    .setDay(day)
+                    .setStockRowId(stockRowId)
+                    .setTypeId(item.getTypeId())
+                    .setDirection(document.isOut() ? 2 : 1)
+                    .setRecords(0)
+                    .setQuantity(0)
+                    .setValue(BigDecimal.ZERO));
+            rollup.setRecords(rollup.getRecords() + 1);
+            rollup.setQuantity(rollup.getQuantity() + item.getAmount());
+            if (item.getPrice() != null) {
+                rollup.setValue(rollup.getValue().add(item.getPrice().multiply(BigDecimal.valueOf(item.getAmount()))));
+            }
+        });
+        return new ArrayList<>(rollupMap.values());
+    }
+
+    /**
+     * 库房物品唯一标识
+     *
+     * @param name   物品名称
+     * @param typeId 物品类型ID
+     * @return 标识
+     */
+    private String stockKey(String name, Integer typeId) {
+        return name + ":" + typeId;
+    }
+}
@@ -0,0 +1,255 @@
+package cc.mrbird.febs.cos.manager;
+
+import cc.mrbird.febs.cos.dao.StockDailyRollupMapper;
+import cc.mrbird.febs.cos.dao.StockInfoMapper;
+import cc.mrbird.febs.cos.entity.ReplenishmentInfo;
+import cc.mrbird.febs.cos.entity.ReplenishmentLine;
+import cc.mrbird.febs.cos.entity.StockDailyRollup;
+import cc.mrbird.febs.cos.entity.StockInfo;
+import cc.mrbird.febs.cos.forecast.HoltWintersEngine;
+import cc.mrbird.febs.cos.service.IReplenishmentInfoService;
+import cn.hutool.core.date.DateUtil;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * 补货评估，按近期出库量预测提前期内需求，计算各库房物品的再订货点与建议补货量。
+ * 只重新预测出库历史或库存发生变化的物品，其余沿用上次评估结果
+ *
+ * @author FanK
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class ReplenishmentEngine {
+
+    /**
+     * 历史数据天数
+     */
+    private static final int HISTORY_DAYS = 30;
+
+    /**
+     * 补货提前期（天）
+     */
+    private static final int LEAD_TIME_DAYS = 7;
+
+    /**
+     * 补货周期（天），建议补货量需覆盖提前期之后的一个周期
+     */
+    private static final int REVIEW_DAYS = 7;
+
+    /**
+     * 95% 服务水平对应的单侧正态分位数
+     */
+    private static final double Z_SCORE = 1.644854;
+
+    /**
+     * 每个任务评估的物品数
+     */
+    private static final int CHUNK = 64;
+
+    private final StockInfoMapper stockInfoMapper;
+
+    private final StockDailyRollupMapper stockDailyRollupMapper;
+
+    private final HoltWintersEngine forecastEngine;
+
+    private final IReplenishmentInfoService replenishmentInfoService;
+
+    @Autowired
+    @Qualifier("replenishmentExecutor")
+    private Executor replenishmentExecutor;
+
+    /**
+     * 上次评估结果，key 为库房数据ID，仅在 run 内读写
+     */
+    private final Map<Integer, Evaluation> evaluationMap = new HashMap<>();
+
+    /**
+     * 上次写入通知的补货决定，key 为库房数据ID，value 为建议补货量，仅在 run 内读写
+     */
+    private Map<Integer, Integer> decisionMap = new HashMap<>();
+
+    /**
+     * 执行补货评估，结果写入未处理的补货通知，没有未处理的通知时新增
+     *
+     * @param force 为 false 时，补货决定与上次相同则不写入，无需补货时不新增通知
+     * @return 补货通知，未写入时返回 null
+     */
+    public synchronized ReplenishmentInfo run(boolean force) {
+        List<StockInfo> stockList = stockInfoMapper.selectList(Wrappers.<StockInfo>lambdaQuery()
+                .select(StockInfo::getId, StockInfo::getName, StockInfo::getTypeId, StockInfo::getType,
+                        StockInfo::getAmount, StockInfo::getUnit, StockInfo::getPrice)
+                .eq(StockInfo::getIsIn, 0));
+        Map<Integer, Integer> rowMap = new HashMap<>(stockList.size() * 2);
+        for (int i = 0; i < stockList.size(); i++) {
+            rowMap.put(stockList.get(i).getId(), i);
+        }
+
+        // 一次分组查询出所有物品的每日出库量
+        double[][] matrix = new double[stockList.size()][HISTORY_DAYS];
+        LocalDate start = LocalDate.now().minusDays(HISTORY_DAYS - 1);
+        for (StockDailyRollup rollup : stockDailyRollupMapper.selectOutSeries(start.toString())) {
+            Integer row = rowMap.get(rollup.getStockRowId());
+            if (row == null || rollup.getQuantity() == null) {
+                continue;
+            }
+            long column = ChronoUnit.DAYS.between(start, LocalDate.parse(rollup.getDay()));
+            if (column >= 0 && column < HISTORY_DAYS) {
+                matrix[row][(int) column] += rollup.getQuantity();
+            }
+        }
+
+        // 历史与库存均未变化的物品沿用上次结果
+        Map<Integer, Evaluation> current = new HashMap<>(stockList.size() * 2);
+        List<Integer> changedRows = new ArrayList<>();
+        for (int row = 0; row < stockList.size(); row++) {
+            StockInfo stock = stockList.get(row);
+            Evaluation previous = evaluationMap.get(stock.getId());
+            if (previous != null && previous.onHand == onHand(stock) && Arrays.equals(previous.history, matrix[row])) {
+                current.put(stock.getId(), previous);
+            } else {
+                changedRows.add(row);
+            }
+        }
+
+        // 分块并行预测
+        List<CompletableFuture<List<Evaluation>>> futures = new ArrayList<>();
+        for (int from = 0; from < changedRows.size(); from += CHUNK) {
+            List<Integer> rows = changedRows.subList(from, Math.min(from + CHUNK, changedRows.size()));
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                List<Evaluation> chunk = new ArrayList<>(rows.size());
+                double[] point = new double[LEAD_TIME_DAYS + REVIEW_DAYS];
+                double[] stdErr = new double[LEAD_TIME_DAYS + REVIEW_DAYS];
+                for (Integer row : rows) {
+                    chunk.add(evaluate(stockList.get(row).getId(), matrix[row], onHand(stockList.get(row)), point, stdErr));
+                }
+                return chunk;
+            }, replenishmentExecutor));
+        }
+        futures.forEach(future -> future.join().forEach(evaluation -> current.put(evaluation.stockRowId, evaluation)));
+        evaluationMap.clear();
+        evaluationMap.putAll(current);
+
+        // 库存不高于再订货点的物品生成补货明细
+        String createDate = DateUtil.formatDateTime(new Date());
+        List<ReplenishmentLine> lineList = new ArrayList<>();
+        Map<Integer, Integer> decisions = new HashMap<>();
+        StringBuilder sb = new StringBuilder();
+        for (StockInfo stock : stockList) {
+            Evaluation evaluation = current.get(stock.getId());
+            int onHand = onHand(stock);
+            if (onHand > evaluation.reorderPoint) {
+                continue;
+            }
+            int quantity = (int) Math.max(Math.ceil(evaluation.reorderPoint + evaluation.reviewDemand - onHand), 0);
+            decisions.put(stock.getId(), quantity);
+            lineList.add(new ReplenishmentLine()
+                    .setStockRowId(stock.getId())
+                    .setName(stock.getName())
+                    .setTypeId(stock.getTypeId())
+                    .setModel(stock.getType())
+                    .setUnit(stock.getUnit())
+                    .setPrice(stock.getPrice())
+                    .setOnHand(onHand)
+                    .setForecastDemand(round(evaluation.leadDemand))
+                    .setSafetyStock(round(evaluation.safetyStock))
+                    .setReorderPoint(round(evaluation.reorderPoint))
+                    .setQuantity(quantity)
+                    .setLeadTime(LEAD_TIME_DAYS)
+                    .setCreateDate(createDate));
+            if (onHand == 0) {
+                sb.append("【").append(stock.getName()).append("】库存余量不足，请及时补货");
+            } else {
+                sb.append("【").append(stock.getName()).append("】库存余量不足，当前库存为 ").append(onHand).append(stock.getUnit());
+            }
+            if (quantity > 0) {
+                sb.append("，建议补货 ").append(quantity).append(stock.getUnit());
+            }
+        }
+        log.info("补货评估完成，共{}种物品，重新评估{}种，需补货{}种", stockList.size(), changedRows.size(), lineList.size());
+        // 补货决定没有变化时不重复通知
+        if (!force && decisions.equals(decisionMap)) {
+            return null;
+        }
+
+        // 更新未处理的通知，没有未处理的通知且有物品需要补货时才新增
+        ReplenishmentInfo replenishment = new ReplenishmentInfo();
+        replenishment.setStatus(0);
+        replenishment.setContent(sb.length() == 0 ? "库存充足" : sb.toString());
+        boolean saved = replenishmentInfoService.replaceOpenReplenishment(replenishment, lineList, force || !lineList.isEmpty());
+        decisionMap = decisions;
+        return saved ? replenishment : null;
+    }
+
+    /**
+     * 预测提前期及之后一个补货周期的出库量，计算安全库存与再订货点
+     */
+    private Evaluation evaluate(Integer stockRowId, double[] history, int onHand, double[] point, double[] stdErr) {
+        forecastEngine.forecast(history, HISTORY_DAYS, LEAD_TIME_DAYS + REVIEW_DAYS, point, stdErr);
+        double leadDemand = 0.0;
+        double variance = 0.0;
+        double reviewDemand = 0.0;
+        for (int h = 0; h < LEAD_TIME_DAYS + REVIEW_DAYS; h++) {
+            if (h < LEAD_TIME_DAYS) {
+                leadDemand += Math.max(point[h], 0.0);
+                variance += stdErr[h] * stdErr[h];
+            } else {
+                reviewDemand += Math.max(point[h], 0.0);
+            }
+        }
+        double safetyStock = Z_SCORE * Math.sqrt(variance);
+        return new Evaluation(stockRowId, history, onHand, leadDemand, safetyStock, leadDemand + safetyStock, reviewDemand);
+    }
+
+    private int onHand(StockInfo stock) {
+        return stock.getAmount() == null ? 0 : stock.getAmount();
+    }
+
+    private BigDecimal round(double value) {
+        return BigDecimal.valueOf(value).setScale(1, RoundingMode.HALF_UP);
+    }
+
+    private static class Evaluation {
+
+        private final Integer stockRowId;
+
+        /**
+         * 评估时的出库历史与库存，下次评估时逐项比较，判断是否需要重新评估。
+         * 历史数组每次评估新建，之后不再修改，可直接持有
+         */
+        private final double[] history;
+
+        private final int onHand;
+
+        private final double leadDemand;
+
+        private final double safetyStock;
+
+        private final double reorderPoint;
+
+        private final double reviewDemand;
+
+        private Evaluation(Integer stockRowId, double[] history, int onHand, double leadDemand, double safetyStock, double reorderPoint, double reviewDemand) {
+            this.stockRowId = stockRowId;
+            this.history = history;
+            this.onHand = onHand;
+            this.leadDemand = leadDemand;
+            this.safetyStock = safetyStock;
+            this.reorderPoint = reorderPoint;
+            this.reviewDemand = reviewDemand;
+        }
+    }
+}
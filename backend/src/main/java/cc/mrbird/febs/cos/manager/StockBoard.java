@@ -0,0 +1,181 @@
+package cc.mrbird.febs.cos.manager;
+
+import cc.mrbird.febs.cos.dao.ConsumableTypeMapper;
+import cc.mrbird.febs.cos.dao.StockDailyRollupMapper;
+import cc.mrbird.febs.cos.dao.StockInfoMapper;
+import cc.mrbird.febs.cos.entity.ConsumableType;
+import cc.mrbird.febs.cos.entity.StockBoardCount;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * 统计看板，按物品类型在内存中维护入库、出库、库房物品数与总价计数，
+ * 启动时初始化，之后随本节点的单据过账事件增量更新，并定时整体重建，
+ * 修正其它节点过账及手工改库造成的偏差。出入库记录数取自每日出入库汇总，
+ * 库房物品数与总价只聚合库房数据，不扫描出入库记录
+ *
+ * @author FanK
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class StockBoard {
+
+    private final StockInfoMapper stockInfoMapper;
+
+    private final StockDailyRollupMapper stockDailyRollupMapper;
+
+    private final ConsumableTypeMapper consumableTypeMapper;
+
+    private volatile Map<Integer, Counter> counterMap = new ConcurrentHashMap<>();
+
+    /**
+     * 重建期间本节点提交的增量，重建完成后合并进新计数
+     */
+    private volatile Map<Integer, Counter> pendingMap;
+
+    /**
+     * 过账事件持读锁累加，替换计数时持写锁，保证增量不会累加到已被替换的计数上
+     */
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    private volatile Map<Integer, String> typeMap = Collections.emptyMap();
+
+    @PostConstruct
+    public void load() {
+        reload();
+        log.info("统计看板初始化完成，共{}种物品类型", counterMap.size());
+    }
+
+    /**
+     * 重建计数后整体替换，查询期间本节点提交的增量同时记入 pendingMap，替换前合并，
+     * 查询开始前已提交、事件稍晚到达的少量单据可能重复计数，由下一次重建修正
+     */
+    @Scheduled(initialDelay = 300000, fixedDelay = 300000)
+    public synchronized void reload() {
+        Map<Integer, Counter> counters = new ConcurrentHashMap<>();
+        pendingMap = new ConcurrentHashMap<>();
+        try {
+            stockDailyRollupMapper.selectBoardCount().forEach(count -> apply(counters, count));
+            stockInfoMapper.selectStockBoardCount().forEach(count -> apply(counters, count));
+        } catch (RuntimeException e) {
+            pendingMap = null;
+            throw e;
+        }
+        swapLock.writeLock().lock();
+        try {
+            pendingMap.forEach((typeId, pending) -> counters.computeIfAbsent(typeId, key -> new Counter()).add(pending));
+            pendingMap = null;
+            counterMap = counters;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        loadTypes();
+    }
+
+    /**
+     * 重新加载物品类型名称
+     */
+    public void loadTypes() {
+        Map<Integer, String> types = new HashMap<>();
+        consumableTypeMapper.selectList(Wrappers.<ConsumableType>lambdaQuery().select(ConsumableType::getId, ConsumableType::getName))
+                .forEach(type -> types.put(type.getId(), type.getName()));
+        typeMap = types;
+    }
+
+    /**
+     * 单据提交后累加计数，回滚的单据不会触发
+     *
+     * @param event 单据过账完成事件
+     */
+    @TransactionalEventListener
+    public void onPosted(StockPostedEvent event) {
+        swapLock.readLock().lock();
+        try {
+            Map<Integer, Counter> counters = counterMap;
+            Map<Integer, Counter> pending = pendingMap;
+            event.getCounts().forEach(count -> {
+                apply(counters, count);
+                if (pending != null) {
+                    apply(pending, count);
+                }
+            });
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 统计看板查询
+     *
+     * @return 出库、入库、库房总价、库房物品数
+     */
+    public LinkedHashMap<String, Object> snapshot() {
+        Map<Integer, Counter> counters = new TreeMap<>(counterMap);
+        LinkedHashMap<String, Object> result = new LinkedHashMap<>();
+        result.put("out", rateList(counters, counter -> counter.out.sum() > 0 ? counter.out.sum() : null));
+        result.put("put", rateList(counters, counter -> counter.put.sum() > 0 ? counter.put.sum() : null));
+        result.put("price", rateList(counters, counter -> counter.stock.sum() > 0 ? counter.value.get() : null));
+        result.put("type", rateList(counters, counter -> counter.stock.sum() > 0 ? counter.stock.sum() : null));
+        return result;
+    }
+
+    private List<LinkedHashMap<String, Object>> rateList(Map<Integer, Counter> counters, Function<Counter, Object> valueFunction) {
+        List<LinkedHashMap<String, Object>> rateList = new ArrayList<>();
+        counters.forEach((typeId, counter) -> {
+            Object value = valueFunction.apply(counter);
+            if (value == null) {
+                return;
+            }
+            LinkedHashMap<String, Object> rateItem = new LinkedHashMap<>();
+            rateItem.put("name", typeMap.get(typeId));
+            rateItem.put("value", value);
+            rateList.add(rateItem);
+        });
+        return rateList;
+    }
+
+    private void apply(Map<Integer, Counter> counters, StockBoardCount count) {
+        if (count.getTypeId() == null) {
+            return;
+        }
+        Counter counter = counters.computeIfAbsent(count.getTypeId(), key -> new Counter());
+        counter.put.add(count.getPutCount());
+        counter.out.add(count.getOutCount());
+        counter.stock.add(count.getStockCount());
+        counter.value.accumulateAndGet(count.getStockValue(), BigDecimal::add);
+    }
+
+    private static class Counter {
+
+        private final LongAdder put = new LongAdder();
+
+        private final LongAdder out = new LongAdder();
+
+        private final LongAdder stock = new LongAdder();
+
+        private final AtomicReference<BigDecimal> value = new AtomicReference<>(BigDecimal.ZERO);
+
+        private void add(Counter other) {
+            put.add(other.put.sum());
+            out.add(other.out.sum());
+            stock.add(other.stock.sum());
+            value.accumulateAndGet(other.value.get(), BigDecimal::add);
+        }
+    }
+}
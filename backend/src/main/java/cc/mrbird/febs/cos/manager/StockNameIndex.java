@@ -0,0 +1,271 @@
+package cc.mrbird.febs.cos.manager;
+
+import cc.mrbird.febs.common.domain.FebsConstant;
+import cc.mrbird.febs.common.exception.RedisConnectException;
+import cc.mrbird.febs.common.service.RedisService;
+import cc.mrbird.febs.cos.dao.StockInfoMapper;
+import cc.mrbird.febs.cos.entity.StockInfo;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.rnkrsoft.bopomofo4j.Bopomofo4j;
+import com.rnkrsoft.bopomofo4j.ToneType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 库房物品名称与型号的 n-gram 倒排索引，名称同时按拼音首字母索引，
+ * 启动时加载全部库房数据，之后随入库过账事件增量添加。
+ * 过账节点提交后通过 Redis 频道广播新增的ID，其它节点按ID加载；
+ * 另定时加载上次扫描之后新增的数据，并每小时全量补齐，补上丢失的通知
+ *
+ * @author FanK
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class StockNameIndex {
+
+    /**
+     * 匹配数超过该值时返回 null，由调用方改用 LIKE 查询，避免过长的 IN 列表
+     */
+    private static final int MAX_MATCHES = 2000;
+
+    private static final String NAME_FIELD = "n:";
+
+    private static final String MODEL_FIELD = "m:";
+
+    private final StockInfoMapper stockInfoMapper;
+
+    private final RedisService redisService;
+
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    /**
+     * 库房数据ID -> 名称、拼音首字母、型号（均为小写）
+     */
+    private final Map<Integer, String[]> documentMap = new ConcurrentHashMap<>();
+
+    /**
+     * 字段前缀 + 单字或双字 -> 库房数据ID
+     */
+    private final Map<String, Set<Integer>> postingMap = new ConcurrentHashMap<>();
+
+    /**
+     * 已扫描过的最大ID，含出入库记录，定时加载只扫描其后新增的数据
+     */
+    private final AtomicInteger scannedId = new AtomicInteger();
+
+    @PostConstruct
+    public void load() {
+        // 使用本地模式
+        Bopomofo4j.local();
+        Integer topId = stockInfoMapper.selectMaxId();
+        stockInfoMapper.selectList(Wrappers.<StockInfo>lambdaQuery()
+                .select(StockInfo::getId, StockInfo::getName, StockInfo::getType)
+                .eq(StockInfo::getIsIn, 0))
+                .forEach(stockInfo -> add(stockInfo.getId(), stockInfo.getName(), stockInfo.getType()));
+        scannedId.set(topId == null ? 0 : topId);
+        log.info("库房物品名称索引初始化完成，共{}种物品，{}个索引项", documentMap.size(), postingMap.size());
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> this.onIndexed(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(FebsConstant.STOCK_INDEX_CHANNEL));
+    }
+
+    /**
+     * 单据提交后索引新增的库房数据，并通知其它节点
+     *
+     * @param event 单据过账完成事件
+     */
+    @TransactionalEventListener
+    public void onPosted(StockPostedEvent event) {
+        if (event.getStocks().isEmpty()) {
+            return;
+        }
+        event.getStocks().forEach(stockInfo -> add(stockInfo.getId(), stockInfo.getName(), stockInfo.getType()));
+        String ids = event.getStocks().stream()
+                .map(stockInfo -> String.valueOf(stockInfo.getId()))
+                .collect(Collectors.joining(","));
+        try {
+            redisService.publish(FebsConstant.STOCK_INDEX_CHANNEL, ids);
+        } catch (RedisConnectException e) {
+            // 由定时加载补上
+            log.warn("库房物品名称索引通知发送失败：{}", ids);
+        }
+    }
+
+    /**
+     * 加载其它节点新增的库房数据，本节点已索引的跳过
+     *
+     * @param message 逗号分隔的库房数据ID
+     */
+    private void onIndexed(String message) {
+        List<Integer> ids = Arrays.stream(StringUtils.split(message, ","))
+                .map(Integer::valueOf)
+                .filter(id -> !documentMap.containsKey(id))
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return;
+        }
+        stockInfoMapper.selectList(Wrappers.<StockInfo>lambdaQuery()
+                .select(StockInfo::getId, StockInfo::getName, StockInfo::getType)
+                .in(StockInfo::getId, ids)
+                .eq(StockInfo::getIsIn, 0))
+                .forEach(stockInfo -> add(stockInfo.getId(), stockInfo.getName(), stockInfo.getType()));
+    }
+
+    /**
+     * 定时加载上次扫描之后新增的库房数据，补上丢失的通知。
+     * 按主键范围只扫描两次加载之间新增的行，出入库记录也计入已扫描ID
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void reload() {
+        Integer topId = stockInfoMapper.selectMaxId();
+        int fromId = scannedId.get();
+        if (topId == null || topId <= fromId) {
+            return;
+        }
+        stockInfoMapper.selectList(Wrappers.<StockInfo>lambdaQuery()
+                .select(StockInfo::getId, StockInfo::getName, StockInfo::getType)
+                .gt(StockInfo::getId, fromId)
+                .le(StockInfo::getId, topId)
+                .eq(StockInfo::getIsIn, 0))
+                .forEach(stockInfo -> add(stockInfo.getId(), stockInfo.getName(), stockInfo.getType()));
+        scannedId.set(topId);
+    }
+
+    /**
+     * 每小时全量补齐未索引的库房数据。
+     * 扫描时尚未提交的数据ID可能已在扫描位置之内，其通知又丢失时由此补上
+     */
+    @Scheduled(initialDelay = 3600000, fixedDelay = 3600000)
+    public void resync() {
+        int before = documentMap.size();
+        stockInfoMapper.selectList(Wrappers.<StockInfo>lambdaQuery()
+                .select(StockInfo::getId, StockInfo::getName, StockInfo::getType)
+                .eq(StockInfo::getIsIn, 0))
+                .stream()
+                .filter(stockInfo -> !documentMap.containsKey(stockInfo.getId()))
+                .forEach(stockInfo -> add(stockInfo.getId(), stockInfo.getName(), stockInfo.getType()));
+        if (documentMap.size() > before) {
+            log.info("库房物品名称索引补齐{}种物品", documentMap.size() - before);
+        }
+    }
+
+    /**
+     * 按名称或拼音首字母查询库房数据ID
+     *
+     * @param keyword 关键字
+     * @return 库房数据ID，关键字为空或匹配过多时返回 null
+     */
+    public Collection<Integer> searchName(String keyword) {
+        return search(NAME_FIELD, keyword);
+    }
+
+    /**
+     * 按型号查询库房数据ID
+     *
+     * @param keyword 关键字
+     * @return 库房数据ID，关键字为空或匹配过多时返回 null
+     */
+    public Collection<Integer> searchModel(String keyword) {
+        return search(MODEL_FIELD, keyword);
+    }
+
+    private void add(Integer id, String name, String model) {
+        if (id == null) {
+            return;
+        }
+        String[] document = {normalize(name), initials(name), normalize(model)};
+        documentMap.put(id, document);
+        index(NAME_FIELD, document[0], id);
+        index(NAME_FIELD, document[1], id);
+        index(MODEL_FIELD, document[2], id);
+    }
+
+    private void index(String field, String text, Integer id) {
+        for (int i = 0; i < text.length(); i++) {
+            postingMap.computeIfAbsent(field + text.charAt(i), key -> ConcurrentHashMap.newKeySet()).add(id);
+            if (i + 1 < text.length()) {
+                postingMap.computeIfAbsent(field + text.substring(i, i + 2), key -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+    }
+
+    private Collection<Integer> search(String field, String keyword) {
+        String query = normalize(keyword);
+        if (query.isEmpty()) {
+            return null;
+        }
+        // 取最短的倒排列表作为候选，再逐个校验是否包含完整关键字
+        Set<Integer> candidates = null;
+        int step = query.length() == 1 ? 1 : 2;
+        for (int i = 0; i + step <= query.length(); i++) {
+            Set<Integer> posting = postingMap.get(field + query.substring(i, i + step));
+            if (posting == null) {
+                return Collections.emptyList();
+            }
+            if (candidates == null || posting.size() < candidates.size()) {
+                candidates = posting;
+            }
+        }
+        List<Integer> result = new ArrayList<>();
+        for (Integer id : candidates) {
+            String[] document = documentMap.get(id);
+            if (document == null) {
+                continue;
+            }
+            boolean matched = NAME_FIELD.equals(field)
+                    ? document[0].contains(query) || document[1].contains(query)
+                    : document[2].contains(query);
+            if (matched) {
+                if (result.size() == MAX_MATCHES) {
+                    return null;
+                }
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    private String normalize(String text) {
+        return StringUtils.isBlank(text) ? "" : text.trim().toLowerCase();
+    }
+
+    /**
+     * 汉字取拼音首字母，字母数字转小写，其余字符忽略
+     */
+    private String initials(String name) {
+        if (StringUtils.isBlank(name)) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(name.length());
+        for (char c : name.toCharArray()) {
+            if (Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN) {
+                try {
+                    String pinyin = Bopomofo4j.pinyin(String.valueOf(c), ToneType.WITHOUT_TONE, false, false, "");
+                    if (StringUtils.isNotEmpty(pinyin)) {
+                        sb.append(Character.toLowerCase(pinyin.charAt(0)));
+                    }
+                } catch (Exception e) {
+                    log.warn("汉字转拼音失败：{}", c);
+                }
+            } else if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+}
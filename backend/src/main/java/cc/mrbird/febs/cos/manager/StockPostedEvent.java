@@ -0,0 +1,49 @@
+package cc.mrbird.febs.cos.manager;
+
+import cc.mrbird.febs.cos.entity.StockBoardCount;
+import cc.mrbird.febs.cos.entity.StockInfo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单据过账完成事件，携带按物品类型汇总的看板计数增量及新增的库房数据
+ *
+ * @author FanK
+ */
+public class StockPostedEvent {
+
+    private final Map<Integer, StockBoardCount> countMap = new LinkedHashMap<>();
+
+    private final List<StockInfo> stockList = new ArrayList<>();
+
+    /**
+     * 获取物品类型对应的计数增量
+     *
+     * @param typeId 物品类型ID
+     * @return 计数增量
+     */
+    public StockBoardCount count(Integer typeId) {
+        return countMap.computeIfAbsent(typeId, key -> new StockBoardCount().setTypeId(key));
+    }
+
+    public Collection<StockBoardCount> getCounts() {
+        return countMap.values();
+    }
+
+    /**
+     * 记录新增的库房数据
+     *
+     * @param stockInfo 库房数据
+     */
+    public void addStock(StockInfo stockInfo) {
+        stockList.add(stockInfo);
+    }
+
+    public List<StockInfo> getStocks() {
+        return stockList;
+    }
+}
@@ -1,11 +1,12 @@
 package cc.mrbird.febs.cos.service;
 
+import cc.mrbird.febs.common.domain.ImportProgress;
 import cc.mrbird.febs.cos.entity.EnterpriseInfo;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
-import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
 import java.util.LinkedHashMap;
 import java.util.List;
 
@@ -27,10 +28,11 @@ public interface IEnterpriseInfoService extends IService<EnterpriseInfo> {
     /**
      * 导入企业信息列表
      *
-     * @param file 文件
-     * @return 结果
+     * @param file     导入文件
+     * @param progress 导入进度
+     * @return 错误信息，无错误时返回 null
      */
-    String importExcel(MultipartFile file) throws Exception;
+    String importExcel(File file, ImportProgress progress) throws Exception;
 
     /**
      * 企业注册
@@ -1,7 +1,10 @@
 package cc.mrbird.febs.cos.service;
 
+import cc.mrbird.febs.common.exception.FebsException;
 import cc.mrbird.febs.cos.entity.PredictionResult;
 
+import java.util.function.Consumer;
+
 // 预测服务接口
 public interface IPredictionService {
     /**
@@ -9,16 +12,26 @@ public interface IPredictionService {
      *
      * @param name   物品名称
      * @param typeId 物品ID
+     * @param engine 预测模型，为空时使用默认模型
      * @return 预测结果
      */
-    PredictionResult predictSales(String name, Integer typeId);
+    PredictionResult predictSales(String name, Integer typeId, String engine) throws FebsException;
 
     /**
      * 预测库存需求
      *
      * @param name   物品名称
      * @param typeId 物品ID
+     * @param engine 预测模型，为空时使用默认模型
      * @return 库存需求预测结果
      */
-    PredictionResult predictInventoryDemand(String name, Integer typeId);
-}
\ No newline at end of file
+    PredictionResult predictInventoryDemand(String name, Integer typeId, String engine) throws FebsException;
+
+    /**
+     * 批量预测所有物品的出库量，预测结果按完成顺序逐个回调
+     *
+     * @param engine   预测模型，为空时使用默认模型
+     * @param consumer 预测结果回调，在调用线程中执行
+     */
+    void predictSalesBatch(String engine, Consumer<PredictionResult> consumer) throws FebsException;
+}
@@ -1,6 +1,7 @@
 package cc.mrbird.febs.cos.service;
 
 import cc.mrbird.febs.cos.entity.ReplenishmentInfo;
+import cc.mrbird.febs.cos.entity.ReplenishmentLine;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
@@ -31,12 +32,32 @@ public interface IReplenishmentInfoService extends IService<ReplenishmentInfo> {
      */
     boolean saveReplenishment(ReplenishmentInfo replenishmentInfo);
 
+    /**
+     * 添加补货通知及补货明细
+     *
+     * @param replenishmentInfo 补货通知
+     * @param lineList          补货明细
+     * @return 结果
+     */
+    boolean saveReplenishment(ReplenishmentInfo replenishmentInfo, List<ReplenishmentLine> lineList);
+
+    /**
+     * 用新的评估结果替换未处理（status 0）的补货通知及其明细，没有未处理的通知时按需新增
+     *
+     * @param replenishmentInfo 补货通知
+     * @param lineList          补货明细
+     * @param create            没有未处理的通知时是否新增
+     * @return 是否写入
+     */
+    boolean replaceOpenReplenishment(ReplenishmentInfo replenishmentInfo, List<ReplenishmentLine> lineList, boolean create);
+
     /**
      * 查询补货信息库存
      *
-     * @param id 补货信息ID
+     * @param page 分页对象
+     * @param id   补货信息ID
      * @return 结果
      */
-    List<LinkedHashMap<String, Object>> selectReplenishmentInventory(Integer id) throws Exception;
+    IPage<LinkedHashMap<String, Object>> selectReplenishmentInventory(Page<ReplenishmentLine> page, Integer id) throws Exception;
 
 }
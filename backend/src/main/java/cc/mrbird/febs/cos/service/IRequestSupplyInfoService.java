@@ -1,5 +1,6 @@
 package cc.mrbird.febs.cos.service;
 
+import cc.mrbird.febs.common.exception.FebsException;
 import cc.mrbird.febs.cos.entity.RequestSupplyInfo;
 import cc.mrbird.febs.cos.entity.RurchaseRequest;
 import com.baomidou.mybatisplus.core.metadata.IPage;
@@ -29,7 +30,7 @@ public interface IRequestSupplyInfoService extends IService<RequestSupplyInfo> {
      * @param requestSupplyInfo 采购信息
      * @return 结果
      */
-    Boolean rurchasePut(RequestSupplyInfo requestSupplyInfo);
+    Boolean rurchasePut(RequestSupplyInfo requestSupplyInfo) throws FebsException;
 
     /**
      * 采购单详情-商品物流
@@ -0,0 +1,16 @@
+package cc.mrbird.febs.cos.service;
+
+import cc.mrbird.febs.cos.entity.StockDailyRollup;
+import com.baomidou.mybatisplus.extension.service.IService;
+
+/**
+ * @author FanK
+ */
+public interface IStockDailyRollupService extends IService<StockDailyRollup> {
+
+    // 由出入库记录重建指定日期的出入库汇总
+    int rebuildDay(String day);
+
+    // 最早一条出入库记录的日期
+    String selectFirstDay();
+}
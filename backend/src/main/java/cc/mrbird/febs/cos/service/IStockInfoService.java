@@ -1,12 +1,14 @@
 package cc.mrbird.febs.cos.service;
 
+import cc.mrbird.febs.common.domain.ImportProgress;
+import cc.mrbird.febs.common.exception.FebsException;
 import cc.mrbird.febs.cos.entity.StockInfo;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
 import org.apache.ibatis.annotations.Param;
-import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
 import java.math.BigDecimal;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -30,7 +32,7 @@ public interface IStockInfoService extends IService<StockInfo> {
     LinkedHashMap<String, Object> selectBoard();
 
     // 入库
-    Boolean stockPut(String goods, String custodian, String putUser, String content, BigDecimal price);
+    Boolean stockPut(String goods, String custodian, String putUser, String content, BigDecimal price) throws FebsException;
 
     // 分页获取物品出入库详情
     IPage<LinkedHashMap<String, Object>> stockInfoDetailPage(Page page, StockInfo stockInfo);
@@ -41,11 +43,15 @@ public interface IStockInfoService extends IService<StockInfo> {
     // 获取主页信息
     LinkedHashMap<String, Object> home(Integer type, Integer userId);
 
+    // 清除首页统计缓存
+    void evictHome();
+
     /**
      * 导入信息列表
      *
-     * @param file 文件
-     * @return 结果
+     * @param file     导入文件
+     * @param progress 导入进度
+     * @return 错误信息，无错误时返回 null
      */
-    String importExcel(MultipartFile file) throws Exception;
+    String importExcel(File file, ImportProgress progress) throws Exception;
 }
@@ -1,5 +1,6 @@
 package cc.mrbird.febs.cos.service;
 
+import cc.mrbird.febs.common.exception.FebsException;
 import cc.mrbird.febs.cos.entity.StockOut;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
@@ -14,7 +15,7 @@ import java.util.LinkedHashMap;
 public interface IStockOutService extends IService<StockOut> {
 
     // 库房出库
-    Boolean stockOut(StockOut stockOut);
+    Boolean stockOut(StockOut stockOut) throws FebsException;
 
     // 分页获取出库管理
     IPage<LinkedHashMap<String, Object>> stockOutByPage(Page page, StockOut stockOut);
@@ -1,34 +1,65 @@
 package cc.mrbird.febs.cos.service.impl;
 
+import cc.mrbird.febs.common.domain.ImportProgress;
+import cc.mrbird.febs.common.handler.ChunkRowHandler;
 import cc.mrbird.febs.cos.dao.EnterpriseInfoMapper;
 import cc.mrbird.febs.cos.entity.EnterpriseInfo;
 import cc.mrbird.febs.cos.service.IEnterpriseInfoService;
-import cn.hutool.core.collection.CollectionUtil;
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.poi.excel.ExcelReader;
 import cn.hutool.poi.excel.ExcelUtil;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
-import java.util.Collections;
-import java.util.Date;
-import java.util.LinkedHashMap;
-import java.util.List;
+import java.io.File;
+import java.util.*;
 
 /**
  * @author FanK
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor(onConstructor = @__(@Autowired))
 public class EnterpriseInfoServiceImpl extends ServiceImpl<EnterpriseInfoMapper, EnterpriseInfo> implements IEnterpriseInfoService {
 
+    /**
+     * 导入时每块处理的行数
+     */
+    private static final int IMPORT_CHUNK_SIZE = 500;
+
+    private static final Map<String, String> IMPORT_HEADER_ALIAS = new HashMap<String, String>() {
+        {
+            put("功能供应商名称", "name");
+            put("单位简称或代号", "abbreviation");
+            put("统一社会信用代码", "creditCode");
+            put("单位性质", "nature");
+            put("二级企业单位性质", "natureTwo");
+            put("经营状态", "status");
+            put("法定代表人", "corporateRepresentative");
+            put("法定代表人身份证号", "corporateRepresentativeId");
+            put("法定代表人电话", "corporateRepresentativePhone");
+            put("注册资本", "registeredCapital");
+            put("注册资金币种", "registeredCapitalCurrency");
+            put("成立日期", "establishmentDate");
+            put("营业期限始期", "businessBeginDate");
+            put("营业期限止期", "businessEndDate");
+            put("注册地址", "registeredAddress");
+            put("经营范围", "businessScope");
+            put("省", "province");
+            put("市", "city");
+            put("区", "district");
+            put("英文企业名称", "enName");
+            put("所属行业", "industry");
+            put("单位简介", "unitDescription");
+        }
+    };
+
     /**
      * 分页获取企业信息
      *
@@ -44,36 +75,40 @@ public class EnterpriseInfoServiceImpl extends ServiceImpl<EnterpriseInfoMapper,
     /**
      * 导入企业信息列表
      *
-     * @param file 文件
-     * @return 结果
+     * @param file     导入文件
+     * @param progress 导入进度
+     * @return 错误信息，无错误时返回 null
      */
     @Override
-    public String importExcel(MultipartFile file) throws Exception {
-        ExcelReader excelReader = ExcelUtil.getReader(file.getInputStream(), 0);
-        setExcelHeaderAlias(excelReader);
-        List<EnterpriseInfo> reports = excelReader.read(1, 2, Integer.MAX_VALUE, EnterpriseInfo.class);
-        StringBuilder error = new StringBuilder("");
-        if (CollectionUtil.isEmpty(reports)) {
-            error.append("导入数据不得为空。");
-            return error.toString();
-        }
-        for (EnterpriseInfo expert : reports) {
-            if (StrUtil.isEmpty(expert.getName())) {
-                error.append("\n名称不能为空");
-                return error.toString();
-            }
-            if (StrUtil.isEmpty(expert.getCreditCode())) {
-                error.append("\n统一社会信用代码不能为空");
-                return error.toString();
+    public String importExcel(File file, ImportProgress progress) throws Exception {
+        ChunkRowHandler<EnterpriseInfo> rowHandler = new ChunkRowHandler<>(IMPORT_HEADER_ALIAS, EnterpriseInfo.class, IMPORT_CHUNK_SIZE, progress, (chunk, chunkProgress) -> {
+            List<EnterpriseInfo> reports = new ArrayList<>(chunk.size());
+            String createDate = DateUtil.formatDateTime(new Date());
+            chunk.forEach((row, expert) -> {
+                if (StrUtil.isEmpty(expert.getName())) {
+                    chunkProgress.addError(row, "名称不能为空");
+                    return;
+                }
+                if (StrUtil.isEmpty(expert.getCreditCode())) {
+                    chunkProgress.addError(row, "统一社会信用代码不能为空");
+                    return;
+                }
+                expert.setCode("EP-" + System.currentTimeMillis());
+                expert.setCreateDate(createDate);
+                reports.add(expert);
+            });
+            if (!reports.isEmpty()) {
+                this.saveBatch(reports);
             }
-            expert.setCode("EP-" + System.currentTimeMillis());
-            expert.setCreateDate(DateUtil.formatDateTime(new Date()));
-        }
-        if (StrUtil.isEmpty(error.toString())) {
-            this.saveBatch(reports);
-            return null;
+        });
+        ExcelUtil.readBySax(file, 0, rowHandler);
+        rowHandler.finish();
+
+        log.info("企业信息导入完成，共{}行，错误{}行，{}行/秒", progress.getRows().get(), progress.getErrorCount().get(), progress.getThroughput());
+        if (progress.getRows().get() == 0) {
+            return "导入数据不得为空。";
         }
-        return error.toString();
+        return progress.getErrorMessage();
     }
 
     /**
@@ -93,34 +128,4 @@ public class EnterpriseInfoServiceImpl extends ServiceImpl<EnterpriseInfoMapper,
         }
         return enterpriseCode;
     }
-
-    /**
-     * 设置HeaderAlias
-     *
-     * @param excelReader HeaderAlias
-     */
-    public void setExcelHeaderAlias(ExcelReader excelReader) {
-        excelReader.addHeaderAlias("功能供应商名称", "name");
-        excelReader.addHeaderAlias("单位简称或代号", "abbreviation");
-        excelReader.addHeaderAlias("统一社会信用代码", "creditCode");
-        excelReader.addHeaderAlias("单位性质", "nature");
-        excelReader.addHeaderAlias("二级企业单位性质", "natureTwo");
-        excelReader.addHeaderAlias("经营状态", "status");
-        excelReader.addHeaderAlias("法定代表人", "corporateRepresentative");
-        excelReader.addHeaderAlias("法定代表人身份证号", "corporateRepresentativeId");
-        excelReader.addHeaderAlias("法定代表人电话", "corporateRepresentativePhone");
-        excelReader.addHeaderAlias("注册资本", "registeredCapital");
-        excelReader.addHeaderAlias("注册资金币种", "registeredCapitalCurrency");
-        excelReader.addHeaderAlias("成立日期", "establishmentDate");
-        excelReader.addHeaderAlias("营业期限始期", "businessBeginDate");
-        excelReader.addHeaderAlias("营业期限止期", "businessEndDate");
-        excelReader.addHeaderAlias("注册地址", "registeredAddress");
-        excelReader.addHeaderAlias("经营范围", "businessScope");
-        excelReader.addHeaderAlias("省", "province");
-        excelReader.addHeaderAlias("市", "city");
-        excelReader.addHeaderAlias("区", "district");
-        excelReader.addHeaderAlias("英文企业名称", "enName");
-        excelReader.addHeaderAlias("所属行业", "industry");
-        excelReader.addHeaderAlias("单位简介", "unitDescription");
-    }
 }
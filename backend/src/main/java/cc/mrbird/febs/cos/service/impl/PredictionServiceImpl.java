@@ -1,251 +1,223 @@
 package cc.mrbird.febs.cos.service.impl;
 
+import cc.mrbird.febs.common.exception.FebsException;
 import cc.mrbird.febs.cos.dao.StockInfoMapper;
 import cc.mrbird.febs.cos.entity.*;
+import cc.mrbird.febs.cos.forecast.ForecastEngine;
+import cc.mrbird.febs.cos.forecast.HoltWintersEngine;
+import cc.mrbird.febs.cos.manager.StockNameIndex;
 import cc.mrbird.febs.cos.service.IPredictionService;
-import cc.mrbird.febs.cos.service.IStockInfoService;
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
-import javax.annotation.Resource;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor(onConstructor = @__(@Autowired))
 public class PredictionServiceImpl implements IPredictionService {
 
-    private final StockInfoMapper stockInfoMapper;
-
-    @Override
-    public PredictionResult predictSales(String name, Integer typeId) {
-        // 获取历史出库数据（例如过去30天）
-        List<Sale> historicalSales = stockInfoMapper.getHistoricalSales(name, typeId);
-
-        // 数据预处理
-        double[] salesData = historicalSales.stream()
-                .filter(Objects::nonNull)
-                .mapToDouble(Sale::getQuantity)
-                .toArray();
-
-        // 使用LSTM进行预测
-        PredictionResult result = performLSTMPrediction(salesData, 30);
-        // 生成未来15天的日期列表
-        List<String> predictionDates = generateFutureDates(15);
-        // 设置日期信息
-        result.setDates(predictionDates);
-
-        return result;
-    }
+    /**
+     * 预测天数
+     */
+    private static final int FORECAST_DAYS = 15;
 
-    @Override
-    public PredictionResult predictInventoryDemand(String name, Integer typeId) {
-        // 获取历史库存数据
-        List<Inventory> historicalInventory = stockInfoMapper.getHistoricalInventory(name, typeId);
+    /**
+     * 置信区间水平及对应的正态分位数
+     */
+    private static final double CONFIDENCE_LEVEL = 0.95;
 
-        // 数据预处理
-        double[] inventoryData = historicalInventory.stream()
-                .filter(Objects::nonNull)
-                .mapToDouble(Inventory::getQuantity)
-                .toArray();
+    private static final double Z_SCORE = 1.959964;
 
-        // 使用LSTM进行预测
-        PredictionResult result = performLSTMPrediction(inventoryData, 15);
-        // 生成未来15天的日期列表
-        List<String> predictionDates = generateFutureDates(15);
-        // 设置日期信息
-        result.setDates(predictionDates);
+    /**
+     * 历史数据天数
+     */
+    private static final int HISTORY_DAYS = 30;
 
-        return result;
-    }
+    /**
+     * 批量预测时每个任务处理的物品数
+     */
+    private static final int BATCH_CHUNK = 64;
 
-    private PredictionResult performLSTMPrediction(double[] historicalData, int days) {
-        // 数据归一化
-        double[] normalizedData = normalizeData(historicalData);
+    private final StockInfoMapper stockInfoMapper;
 
-        // 构建时间序列数据集
-        List<double[]> sequences = createTimeSeriesSequences(normalizedData, 10);
+    private final List<ForecastEngine> forecastEngines;
 
-        // 计算趋势因子
-        double trendFactor = calculateTrendFactor(historicalData);
+    private final StockNameIndex stockNameIndex;
 
-        // 构建和训练LSTM模型（简化实现）
-        // 在实际应用中，这里会使用深度学习框架如DL4J或调用Python服务
-        double[] predictions = new double[days];
+    @Autowired
+    @Qualifier("forecastExecutor")
+    private Executor forecastExecutor;
 
-        // 简化的LSTM预测逻辑（实际实现需要深度学习框架）
-        if (sequences.size() > 0) {
-            double[] lastSequence = sequences.get(sequences.size() - 1);
-            // 基于最后一个序列进行预测（简化版）
-            for (int i = 0; i < days; i++) {
-                // 简单移动平均作为示例
-                double sum = 0;
-                for (double val : lastSequence) {
-                    sum += val;
-                }
-                double basePrediction = sum / lastSequence.length;
+    @Override
+    public PredictionResult predictSales(String name, Integer typeId, String engine) throws FebsException {
+        // 获取历史出库数据（例如过去30天）
+        List<Sale> historicalSales = stockInfoMapper.getHistoricalSales(name, typeId, stockNameIndex.searchName(name));
 
-                // 应用趋势因子，区分上升和下降趋势
-                if (trendFactor > 0) {
-                    // 上升趋势
-                    predictions[i] = basePrediction * (1 + Math.abs(trendFactor) * (i + 1) * 0.1);
-                } else if (trendFactor < 0) {
-                    // 下降趋势
-                    predictions[i] = basePrediction * (1 - Math.abs(trendFactor) * (i + 1) * 0.1);
-                } else {
-                    // 无明显趋势
-                    predictions[i] = basePrediction;
-                }
+        // 数据预处理
+        double[] salesData = new double[historicalSales.size()];
+        int length = 0;
+        for (Sale sale : historicalSales) {
+            if (sale != null && sale.getQuantity() != null) {
+                salesData[length++] = sale.getQuantity();
             }
-        } else {
-            // 默认预测值
-            Arrays.fill(predictions, 0.0);
         }
+        return performPrediction(selectEngine(engine), salesData, length);
+    }
 
-        // 反归一化预测结果
-        double[] denormalizedPredictions = denormalizeData(predictions, historicalData);
-
-        // 计算置信度（基于数据稳定性和趋势一致性）
-        double confidence = calculateConfidence(historicalData, trendFactor);
+    @Override
+    public PredictionResult predictInventoryDemand(String name, Integer typeId, String engine) throws FebsException {
+        // 获取历史库存数据
+        List<Inventory> historicalInventory = stockInfoMapper.getHistoricalInventory(name, typeId, stockNameIndex.searchName(name));
 
-        // 转换为List<Double>并保留一位小数
-        List<Double> predictionList = new ArrayList<>();
-        for (double value : denormalizedPredictions) {
-            predictionList.add(new BigDecimal(value).setScale(1, RoundingMode.HALF_UP).doubleValue());
+        // 数据预处理
+        double[] inventoryData = new double[historicalInventory.size()];
+        int length = 0;
+        for (Inventory inventory : historicalInventory) {
+            if (inventory != null && inventory.getQuantity() != null) {
+                inventoryData[length++] = inventory.getQuantity();
+            }
         }
-
-        // 创建并返回包含预测值和置信度的结果对象
-        PredictionResult result = new PredictionResult();
-        result.setPredictedValues(predictionList);
-        result.setConfidence(confidence);
-
-        return result;
+        return performPrediction(selectEngine(engine), inventoryData, length);
     }
 
-    /**
-     * 计算模型置信度
-     * @param data 历史数据
-     * @param trendFactor 趋势因子
-     * @return 置信度值（0-1之间）
-     */
-    private double calculateConfidence(double[] data, double trendFactor) {
-        if (data.length < 2) {
-            return 0.0;
+    @Override
+    public void predictSalesBatch(String engine, Consumer<PredictionResult> consumer) throws FebsException {
+        ForecastEngine forecastEngine = selectEngine(engine);
+        // 所有库房物品
+        List<StockInfo> stockList = stockInfoMapper.selectList(Wrappers.<StockInfo>lambdaQuery()
+                .select(StockInfo::getId, StockInfo::getName, StockInfo::getTypeId).eq(StockInfo::getIsIn, 0));
+        if (stockList.isEmpty()) {
+            return;
         }
-
-        // 计算数据的标准差作为稳定性指标
-        double mean = Arrays.stream(data).average().orElse(0.0);
-        double variance = Arrays.stream(data)
-                .map(x -> Math.pow(x - mean, 2))
-                .average()
-                .orElse(0.0);
-        double stdDev = Math.sqrt(variance);
-
-        // 标准化标准差（值越小表示数据越稳定，置信度越高）
-        double stabilityFactor = 1.0 / (1.0 + stdDev / (mean + 1e-10)); // 避免除零
-
-        // 趋势强度因子（趋势越明显，置信度越高）
-        double trendStrength = Math.abs(trendFactor);
-
-        // 综合置信度计算
-        double confidence = 0.7 * stabilityFactor + 0.3 * Math.min(trendStrength, 1.0);
-
-        // 确保置信度在合理范围内
-        return Math.max(0.0, Math.min(1.0, confidence));
-    }
-
-    /**
-     * 计算趋势因子
-     * @param data 历史数据
-     * @return 趋势因子，正值表示上升趋势，负值表示下降趋势
-     */
-    private double calculateTrendFactor(double[] data) {
-        if (data.length < 2) {
-            return 0.0;
+        Map<String, Integer> rowMap = new HashMap<>(stockList.size() * 2);
+        for (int i = 0; i < stockList.size(); i++) {
+            rowMap.put(stockList.get(i).getName() + ":" + stockList.get(i).getTypeId(), i);
         }
 
-        // 使用线性回归计算趋势
-        int n = data.length;
-        double sumX = 0, sumY = 0, sumXY = 0, sumXX = 0;
-
-        for (int i = 0; i < n; i++) {
-            sumX += i;
-            sumY += data[i];
-            sumXY += i * data[i];
-            sumXX += i * i;
+        // 一次分组查询出所有物品的出库历史，按物品逐行填充
+        double[][] matrix = new double[stockList.size()][HISTORY_DAYS];
+        LocalDate start = LocalDate.now().minusDays(HISTORY_DAYS - 1);
+        for (Sale sale : stockInfoMapper.getHistoricalSalesGroup(HISTORY_DAYS)) {
+            Integer row = rowMap.get(sale.getName() + ":" + sale.getTypeId());
+            if (row == null || sale.getQuantity() == null) {
+                continue;
+            }
+            long column = ChronoUnit.DAYS.between(start, LocalDate.parse(sale.getDate()));
+            if (column >= 0 && column < HISTORY_DAYS) {
+                matrix[row][(int) column] = sale.getQuantity();
+            }
         }
 
-        // 计算斜率作为趋势因子
-        double slope = (n * sumXY - sumX * sumY) / (n * sumXX - sumX * sumX);
-
-        // 标准化趋势因子
-        double mean = sumY / n;
-        double trendFactor = mean != 0 ? slope / Math.abs(mean) : 0;
-
-        return trendFactor;
+        // 分块并行预测，按完成顺序回调
+        CompletionService<List<PredictionResult>> completionService = new ExecutorCompletionService<>(forecastExecutor);
+        int tasks = 0;
+        for (int from = 0; from < stockList.size(); from += BATCH_CHUNK) {
+            int begin = from;
+            int end = Math.min(from + BATCH_CHUNK, stockList.size());
+            completionService.submit(() -> {
+                List<PredictionResult> chunk = new ArrayList<>(end - begin);
+                double[] point = new double[FORECAST_DAYS];
+                double[] stdErr = new double[FORECAST_DAYS];
+                for (int row = begin; row < end; row++) {
+                    PredictionResult result = performPrediction(forecastEngine, matrix[row], HISTORY_DAYS, point, stdErr);
+                    result.setName(stockList.get(row).getName());
+                    result.setTypeId(stockList.get(row).getTypeId());
+                    chunk.add(result);
+                }
+                return chunk;
+            });
+            tasks++;
+        }
+        try {
+            for (int i = 0; i < tasks; i++) {
+                completionService.take().get().forEach(consumer);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FebsException("批量预测被中断");
+        } catch (ExecutionException e) {
+            log.error("批量预测失败", e.getCause());
+            throw new FebsException("批量预测失败");
+        }
     }
 
     /**
-     * 数据归一化
+     * 按名称选择预测模型
      *
-     * @param data 原始数据
-     * @return 归一化后的数据
+     * @param engine 模型名称，为空时使用 Holt-Winters
+     * @return 预测模型
      */
-    private double[] normalizeData(double[] data) {
-        if (data.length == 0) {
-            return new double[0];
+    private ForecastEngine selectEngine(String engine) throws FebsException {
+        String engineName = StrUtil.isBlank(engine) ? HoltWintersEngine.NAME : engine;
+        for (ForecastEngine forecastEngine : forecastEngines) {
+            if (forecastEngine.name().equalsIgnoreCase(engineName)) {
+                return forecastEngine;
+            }
         }
-
-        double min = Arrays.stream(data).min().orElse(0.0);
-        double max = Arrays.stream(data).max().orElse(1.0);
-        double range = max - min;
-
-        return Arrays.stream(data)
-                .map(val -> range == 0 ? 0.0 : (val - min) / range)
-                .toArray();
+        throw new FebsException("不支持的预测模型：" + engineName);
     }
 
     /**
-     * 数据反归一化
+     * 调用预测模型并生成预测结果
      *
-     * @param normalizedData 归一化数据
-     * @param originalData   原始数据（用于获取min/max值）
-     * @return 反归一化后的数据
+     * @param engine         预测模型
+     * @param historicalData 历史数据
+     * @param length         历史数据有效长度
+     * @return 预测结果
      */
-    private double[] denormalizeData(double[] normalizedData, double[] originalData) {
-        if (originalData.length == 0) {
-            return normalizedData;
-        }
-
-        double min = Arrays.stream(originalData).min().orElse(0.0);
-        double max = Arrays.stream(originalData).max().orElse(1.0);
-        double range = max - min;
-
-        return Arrays.stream(normalizedData)
-                .map(val -> val * range + min)
-                .toArray();
+    private PredictionResult performPrediction(ForecastEngine engine, double[] historicalData, int length) {
+        return performPrediction(engine, historicalData, length, new double[FORECAST_DAYS], new double[FORECAST_DAYS]);
     }
 
     /**
-     * 创建时间序列序列
+     * 调用预测模型并生成预测结果，复用调用方提供的缓冲区
      *
-     * @param data           数据
-     * @param sequenceLength 序列长度
-     * @return 时间序列序列列表
+     * @param engine         预测模型
+     * @param historicalData 历史数据
+     * @param length         历史数据有效长度
+     * @param point          预测值缓冲区
+     * @param stdErr         标准误差缓冲区
+     * @return 预测结果
      */
-    private List<double[]> createTimeSeriesSequences(double[] data, int sequenceLength) {
-        List<double[]> sequences = new ArrayList<>();
-
-        for (int i = 0; i <= data.length - sequenceLength; i++) {
-            double[] sequence = new double[sequenceLength];
-            System.arraycopy(data, i, sequence, 0, sequenceLength);
-            sequences.add(sequence);
+    private PredictionResult performPrediction(ForecastEngine engine, double[] historicalData, int length, double[] point, double[] stdErr) {
+        engine.forecast(historicalData, length, FORECAST_DAYS, point, stdErr);
+
+        // 出库量与库存需求不为负，保留一位小数
+        List<Double> predictionList = new ArrayList<>(FORECAST_DAYS);
+        List<Double> lowerList = new ArrayList<>(FORECAST_DAYS);
+        List<Double> upperList = new ArrayList<>(FORECAST_DAYS);
+        for (int i = 0; i < FORECAST_DAYS; i++) {
+            double margin = Z_SCORE * stdErr[i];
+            predictionList.add(round(Math.max(point[i], 0.0)));
+            lowerList.add(round(Math.max(point[i] - margin, 0.0)));
+            upperList.add(round(Math.max(point[i] + margin, 0.0)));
         }
 
-        return sequences;
+        PredictionResult result = new PredictionResult();
+        result.setPredictedValues(predictionList);
+        result.setLowerBounds(lowerList);
+        result.setUpperBounds(upperList);
+        result.setConfidence(CONFIDENCE_LEVEL);
+        result.setModelVersion(engine.name());
+        result.setCreateTime(new Date());
+        result.setDates(generateFutureDates(FORECAST_DAYS));
+        return result;
+    }
+
+    private double round(double value) {
+        return BigDecimal.valueOf(value).setScale(1, RoundingMode.HALF_UP).doubleValue();
     }
 
     /**
@@ -1,15 +1,16 @@
 package cc.mrbird.febs.cos.service.impl;
 
 import cc.mrbird.febs.common.exception.FebsException;
-import cc.mrbird.febs.cos.dao.StorehouseInfoMapper;
 import cc.mrbird.febs.cos.entity.ReplenishmentInfo;
 import cc.mrbird.febs.cos.dao.ReplenishmentInfoMapper;
-import cc.mrbird.febs.cos.entity.StorehouseInfo;
+import cc.mrbird.febs.cos.dao.ReplenishmentLineMapper;
+import cc.mrbird.febs.cos.entity.ReplenishmentLine;
 import cc.mrbird.febs.cos.service.IReplenishmentInfoService;
-import cn.hutool.core.collection.CollectionUtil;
-import cn.hutool.core.convert.Convert;
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
@@ -17,10 +18,9 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * @author FanK
@@ -29,7 +29,12 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor(onConstructor = @__(@Autowired))
 public class ReplenishmentInfoServiceImpl extends ServiceImpl<ReplenishmentInfoMapper, ReplenishmentInfo> implements IReplenishmentInfoService {
 
-    private final StorehouseInfoMapper storehouseInfoMapper;
+    private final ReplenishmentLineMapper replenishmentLineMapper;
+
+    /**
+     * 补货明细每批写入条数
+     */
+    private static final int LINE_BATCH_SIZE = 500;
 
     /**
      * 分页查询盘库信息
@@ -55,37 +60,109 @@ public class ReplenishmentInfoServiceImpl extends ServiceImpl<ReplenishmentInfoM
         return this.save(replenishmentInfo);
     }
 
+    /**
+     * 添加补货通知及补货明细
+     *
+     * @param replenishmentInfo 补货通知
+     * @param lineList          补货明细
+     * @return 结果
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean saveReplenishment(ReplenishmentInfo replenishmentInfo, List<ReplenishmentLine> lineList) {
+        boolean result = this.saveReplenishment(replenishmentInfo);
+        this.saveLines(replenishmentInfo.getId(), lineList);
+        return result;
+    }
+
+    /**
+     * 用新的评估结果替换未处理（status 0）的补货通知及其明细，没有未处理的通知时按需新增，
+     * 避免定时评估每次都生成一份重复的通知
+     *
+     * @param replenishmentInfo 补货通知
+     * @param lineList          补货明细
+     * @param create            没有未处理的通知时是否新增
+     * @return 是否写入
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean replaceOpenReplenishment(ReplenishmentInfo replenishmentInfo, List<ReplenishmentLine> lineList, boolean create) {
+        // 历史通知只有 JSON 补货信息，不参与替换
+        ReplenishmentInfo open = this.getOne(Wrappers.<ReplenishmentInfo>lambdaQuery()
+                .eq(ReplenishmentInfo::getStatus, 0)
+                .isNull(ReplenishmentInfo::getReplenishment)
+                .orderByDesc(ReplenishmentInfo::getId)
+                .last("LIMIT 1"));
+        if (open == null) {
+            return create && this.saveReplenishment(replenishmentInfo, lineList);
+        }
+        replenishmentInfo.setId(open.getId());
+        replenishmentInfo.setTaskDate(DateUtil.formatDate(new Date()));
+        this.updateById(replenishmentInfo);
+        replenishmentLineMapper.delete(Wrappers.<ReplenishmentLine>lambdaQuery().eq(ReplenishmentLine::getReplenishmentId, open.getId()));
+        this.saveLines(open.getId(), lineList);
+        return true;
+    }
+
+    private void saveLines(Integer replenishmentId, List<ReplenishmentLine> lineList) {
+        lineList.forEach(line -> line.setReplenishmentId(replenishmentId));
+        for (int from = 0; from < lineList.size(); from += LINE_BATCH_SIZE) {
+            replenishmentLineMapper.insertBatch(lineList.subList(from, Math.min(from + LINE_BATCH_SIZE, lineList.size())));
+        }
+    }
+
     /**
      * 查询补货信息库存
      *
-     * @param id 补货信息ID
+     * @param page 分页对象
+     * @param id   补货信息ID
      * @return 结果
      */
     @Override
-    public List<LinkedHashMap<String, Object>> selectReplenishmentInventory(Integer id) throws Exception {
-        List<LinkedHashMap<String, Object>> result = new ArrayList<>();
-        // 获取补货信息
+    public IPage<LinkedHashMap<String, Object>> selectReplenishmentInventory(Page<ReplenishmentLine> page, Integer id) throws Exception {
         ReplenishmentInfo replenishmentInfo = this.getById(id);
-        if (StrUtil.isEmpty(replenishmentInfo.getReplenishment())) {
+        if (replenishmentInfo == null) {
             throw new FebsException("无需要补货信息！");
         }
-        List<StorehouseInfo> storehouseList = Convert.toList(StorehouseInfo.class, replenishmentInfo.getReplenishment());
-//        List<String> materialNameList = storehouseList.stream().map(StorehouseInfo::getMaterialName).distinct().collect(Collectors.toList());
-        // 获取库存信息
-//        List<StorehouseInfo> infoList = storehouseInfoMapper.selectList(Wrappers.<StorehouseInfo>lambdaQuery().eq(StorehouseInfo::getTransactionType, 0).in(StorehouseInfo::getMaterialName, materialNameList));
-//        Map<String, BigDecimal> materialInventory = infoList.stream().collect(Collectors.toMap(StorehouseInfo::getMaterialName, StorehouseInfo::getQuantity));
-//        storehouseList.forEach(item -> {
-//            LinkedHashMap<String, Object> resultItem = new LinkedHashMap<String, Object>() {
-//                {
-//                    put("materialName", item.getMaterialName());
-//                    put("materialType", item.getMaterialType());
-//                    put("unitPrice", item.getUnitPrice());
-//                    put("replenishmentQuantity", item.getQuantity());
-//                    put("inventory", materialInventory.get(item.getMaterialName()) != null ? materialInventory.get(item.getMaterialName()) : 0);
-//                }
-//            };
-//            result.add(resultItem);
-//        });
+        // 历史通知只有 JSON 格式的补货信息，没有补货明细
+        if (StrUtil.isNotEmpty(replenishmentInfo.getReplenishment())) {
+            return this.selectLegacyInventory(page, replenishmentInfo.getReplenishment());
+        }
+        return replenishmentLineMapper.selectInventoryPage(page, id);
+    }
+
+    /**
+     * 解析历史通知的 JSON 补货信息，字段与补货明细查询结果保持一致，
+     * 历史数据记录的是当时库存，没有建议补货数量等评估结果
+     *
+     * @param page          分页对象
+     * @param replenishment JSON 补货信息
+     * @return 结果
+     */
+    private IPage<LinkedHashMap<String, Object>> selectLegacyInventory(Page<ReplenishmentLine> page, String replenishment) {
+        JSONArray array = JSONUtil.parseArray(replenishment);
+        List<LinkedHashMap<String, Object>> records = new ArrayList<>(array.size());
+        for (int i = 0; i < array.size(); i++) {
+            JSONObject item = array.getJSONObject(i);
+            LinkedHashMap<String, Object> record = new LinkedHashMap<>();
+            record.put("materialName", item.getStr("materialName"));
+            record.put("materialType", item.getInt("materialType"));
+            record.put("typeName", null);
+            record.put("model", item.getStr("model"));
+            record.put("unit", item.getStr("measurementUnit"));
+            record.put("unitPrice", item.getBigDecimal("unitPrice"));
+            record.put("replenishmentQuantity", null);
+            record.put("onHand", item.getInt("quantity"));
+            records.add(record);
+        }
+        Page<LinkedHashMap<String, Object>> result = new Page<>(page.getCurrent(), page.getSize(), records.size());
+        // size 小于 0 时与分页插件一致，不分页
+        if (page.getSize() < 0) {
+            return result.setRecords(records);
+        }
+        int from = (int) Math.min((page.getCurrent() - 1) * page.getSize(), records.size());
+        int to = (int) Math.min(from + page.getSize(), records.size());
+        result.setRecords(records.subList(from, to));
         return result;
     }
 }
@@ -1,11 +1,12 @@
 package cc.mrbird.febs.cos.service.impl;
 
+import cc.mrbird.febs.common.exception.FebsException;
 import cc.mrbird.febs.cos.dao.StockPutMapper;
 import cc.mrbird.febs.cos.entity.*;
 import cc.mrbird.febs.cos.dao.RequestSupplyInfoMapper;
+import cc.mrbird.febs.cos.manager.InventoryLedger;
 import cc.mrbird.febs.cos.service.IGoodsBelongService;
 import cc.mrbird.febs.cos.service.IRequestSupplyInfoService;
-import cc.mrbird.febs.cos.service.IStockInfoService;
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONArray;
@@ -17,6 +18,7 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -30,7 +32,7 @@ public class RequestSupplyInfoServiceImpl extends ServiceImpl<RequestSupplyInfoM
 
     private final StockPutMapper stockPutMapper;
 
-    private final IStockInfoService stockInfoService;
+    private final InventoryLedger inventoryLedger;
 
     private final IGoodsBelongService goodsBelongService;
 
@@ -47,7 +49,8 @@ public class RequestSupplyInfoServiceImpl extends ServiceImpl<RequestSupplyInfoM
     }
 
     @Override
-    public Boolean rurchasePut(RequestSupplyInfo requestSupplyInfo) {
+    @Transactional(rollbackFor = Exception.class)
+    public Boolean rurchasePut(RequestSupplyInfo requestSupplyInfo) throws FebsException {
         List<GoodsBelong> goodsBelongList = goodsBelongService.list(Wrappers.<GoodsBelong>lambdaQuery().eq(GoodsBelong::getNum, requestSupplyInfo.getNum()));
         // 添加入库单
         StockPut stockPut = new StockPut();
@@ -59,55 +62,7 @@ public class RequestSupplyInfoServiceImpl extends ServiceImpl<RequestSupplyInfoM
         stockPut.setNum("PUT-" + System.currentTimeMillis());
         stockPutMapper.insert(stockPut);
 
-        goodsBelongList.forEach(item -> {
-            item.setCreateDate(DateUtil.formatDateTime(new Date()));
-            item.setNum(stockPut.getNum());
-            // 判断库房物品是否存在
-            StockInfo stockInfo = stockInfoService.getOne(Wrappers.<StockInfo>lambdaQuery().eq(StockInfo::getName, item.getName()).eq(StockInfo::getTypeId, item.getTypeId()).eq(StockInfo::getIsIn, 0));
-            if (stockInfo != null) {
-                // 更改库房数据
-                stockInfoService.update(Wrappers.<StockInfo>lambdaUpdate().set(StockInfo::getAmount, stockInfo.getAmount() + item.getAmount())
-                        .set(StockInfo::getPrice, stockInfo.getPrice())
-                        .eq(StockInfo::getName, stockInfo.getName()));
-            } else {
-                // 重新添加库房数据
-                StockInfo stock = new StockInfo();
-                stock.setName(item.getName());
-                stock.setAmount(item.getAmount());
-                stock.setCreateDate(DateUtil.formatDateTime(new Date()));
-                stock.setType(item.getType());
-                stock.setTypeId(item.getTypeId());
-                stock.setUnit(item.getUnit());
-                stock.setPrice(item.getPrice());
-                stock.setIsIn(0);
-                stockInfo = stock;
-                stockInfoService.save(stock);
-            }
-            // 添加入库记录
-            StockInfo stockInfoPut = new StockInfo();
-            stockInfoPut.setParentId(stockInfo.getId());
-            stockInfoPut.setName(item.getName());
-            stockInfoPut.setAmount(item.getAmount());
-            stockInfoPut.setCreateDate(DateUtil.formatDateTime(new Date()));
-            stockInfoPut.setType(item.getType());
-            stockInfoPut.setTypeId(item.getTypeId());
-            stockInfoPut.setUnit(item.getUnit());
-            stockInfoPut.setPrice(item.getPrice());
-            stockInfoPut.setIsIn(1);
-            stockInfoService.save(stockInfoPut);
-
-            // 添加所属信息
-            GoodsBelong goodsBelong = new GoodsBelong();
-            goodsBelong.setNum(stockPut.getNum());
-            goodsBelong.setCreateDate(DateUtil.formatDateTime(new Date()));
-            goodsBelong.setAmount(item.getAmount());
-            goodsBelong.setName(item.getName());
-            goodsBelong.setPrice(item.getPrice());
-            goodsBelong.setType(item.getType());
-            goodsBelong.setTypeId(item.getTypeId());
-            goodsBelong.setUnit(item.getUnit());
-            goodsBelongService.save(goodsBelong);
-        });
+        inventoryLedger.post(new LedgerDocument().setSource(LedgerDocument.RS).setNum(stockPut.getNum()).setGoods(goodsBelongList));
         // 修改状态
         this.update(Wrappers.<RequestSupplyInfo>lambdaUpdate().set(RequestSupplyInfo::getStatus, 2).eq(RequestSupplyInfo::getId, requestSupplyInfo.getId()));
         return true;
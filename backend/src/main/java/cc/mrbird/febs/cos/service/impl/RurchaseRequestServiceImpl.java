@@ -1,14 +1,15 @@
 package cc.mrbird.febs.cos.service.impl;
 
+import cc.mrbird.febs.common.exception.FebsException;
 import cc.mrbird.febs.cos.dao.StockPutMapper;
 import cc.mrbird.febs.cos.entity.GoodsBelong;
 import cc.mrbird.febs.cos.entity.RurchaseRequest;
 import cc.mrbird.febs.cos.dao.RurchaseRequestMapper;
-import cc.mrbird.febs.cos.entity.StockInfo;
+import cc.mrbird.febs.cos.manager.InventoryLedger;
+import cc.mrbird.febs.cos.entity.LedgerDocument;
 import cc.mrbird.febs.cos.entity.StockPut;
 import cc.mrbird.febs.cos.service.IGoodsBelongService;
 import cc.mrbird.febs.cos.service.IRurchaseRequestService;
-import cc.mrbird.febs.cos.service.IStockInfoService;
 import cc.mrbird.febs.cos.service.IStockPutService;
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.json.JSONArray;
@@ -21,6 +22,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Date;
 import java.util.LinkedHashMap;
@@ -36,8 +38,8 @@ public class RurchaseRequestServiceImpl extends ServiceImpl<RurchaseRequestMappe
     private final IGoodsBelongService goodsBelongService;
     @Lazy
     private final StockPutMapper stockPutMapper;
-    @Lazy
-    private final IStockInfoService stockInfoService;
+
+    private final InventoryLedger inventoryLedger;
 
     @Override
     public IPage<LinkedHashMap<String, Object>> rurchaseRequestByPage(Page page, RurchaseRequest rurchaseRequest) {
@@ -59,7 +61,8 @@ public class RurchaseRequestServiceImpl extends ServiceImpl<RurchaseRequestMappe
     }
 
     @Override
-    public Boolean rurchasePut(RurchaseRequest rurchaseRequest) {
+    @Transactional(rollbackFor = Exception.class)
+    public Boolean rurchasePut(RurchaseRequest rurchaseRequest) throws FebsException {
         JSONArray array = JSONUtil.parseArray(rurchaseRequest.getGoods());
         List<GoodsBelong> goodsBelongList = JSONUtil.toList(array, GoodsBelong.class);
         // 添加入库单
@@ -72,55 +75,7 @@ public class RurchaseRequestServiceImpl extends ServiceImpl<RurchaseRequestMappe
         stockPut.setNum("PUT-" + System.currentTimeMillis());
         stockPutMapper.insert(stockPut);
 
-        goodsBelongList.forEach(item -> {
-            item.setCreateDate(DateUtil.formatDateTime(new Date()));
-            item.setNum(stockPut.getNum());
-            // 判断库房物品是否存在
-            StockInfo stockInfo = stockInfoService.getOne(Wrappers.<StockInfo>lambdaQuery().eq(StockInfo::getName, item.getName()).eq(StockInfo::getTypeId, item.getTypeId()).eq(StockInfo::getIsIn, 0));
-            if (stockInfo != null) {
-                // 更改库房数据
-                stockInfoService.update(Wrappers.<StockInfo>lambdaUpdate().set(StockInfo::getAmount, stockInfo.getAmount() + item.getAmount())
-                        .set(StockInfo::getPrice, stockInfo.getPrice())
-                        .eq(StockInfo::getName, stockInfo.getName()));
-            } else {
-                // 重新添加库房数据
-                StockInfo stock = new StockInfo();
-                stock.setName(item.getName());
-                stock.setAmount(item.getAmount());
-                stock.setCreateDate(DateUtil.formatDateTime(new Date()));
-                stock.setType(item.getType());
-                stock.setTypeId(item.getTypeId());
-                stock.setUnit(item.getUnit());
-                stock.setPrice(item.getPrice());
-                stock.setIsIn(0);
-                stockInfo = stock;
-                stockInfoService.save(stock);
-            }
-            // 添加入库记录
-            StockInfo stockInfoPut = new StockInfo();
-            stockInfoPut.setParentId(stockInfo.getId());
-            stockInfoPut.setName(item.getName());
-            stockInfoPut.setAmount(item.getAmount());
-            stockInfoPut.setCreateDate(DateUtil.formatDateTime(new Date()));
-            stockInfoPut.setType(item.getType());
-            stockInfoPut.setTypeId(item.getTypeId());
-            stockInfoPut.setUnit(item.getUnit());
-            stockInfoPut.setPrice(item.getPrice());
-            stockInfoPut.setIsIn(1);
-            stockInfoService.save(stockInfoPut);
-
-            // 添加所属信息
-            GoodsBelong goodsBelong = new GoodsBelong();
-            goodsBelong.setNum(stockPut.getNum());
-            goodsBelong.setCreateDate(DateUtil.formatDateTime(new Date()));
-            goodsBelong.setAmount(item.getAmount());
-            goodsBelong.setName(item.getName());
-            goodsBelong.setPrice(item.getPrice());
-            goodsBelong.setType(item.getType());
-            goodsBelong.setTypeId(item.getTypeId());
-            goodsBelong.setUnit(item.getUnit());
-            goodsBelongService.save(goodsBelong);
-        });
+        inventoryLedger.post(new LedgerDocument().setSource(LedgerDocument.RUR).setNum(stockPut.getNum()).setGoods(goodsBelongList));
         // 修改状态
         this.update(Wrappers.<RurchaseRequest>lambdaUpdate().set(RurchaseRequest::getStep, 1).eq(RurchaseRequest::getId, rurchaseRequest.getId()));
         return true;
@@ -0,0 +1,38 @@
+package cc.mrbird.febs.cos.service.impl;
+
+import cc.mrbird.febs.cos.dao.StockDailyRollupMapper;
+import cc.mrbird.febs.cos.entity.StockDailyRollup;
+import cc.mrbird.febs.cos.service.IStockDailyRollupService;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * @author FanK
+ */
+@Service
+public class StockDailyRollupServiceImpl extends ServiceImpl<StockDailyRollupMapper, StockDailyRollup> implements IStockDailyRollupService {
+
+    /**
+     * 删除当日汇总后由当日出入库记录重建，每天一个事务，只锁定当日的记录
+     *
+     * @param day 日期（yyyy-MM-dd）
+     * @return 重建后的当日汇总行数
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int rebuildDay(String day) {
+        baseMapper.deleteByDay(day);
+        return baseMapper.rebuildDay(day);
+    }
+
+    /**
+     * 最早一条出入库记录的日期
+     *
+     * @return 日期（yyyy-MM-dd），无记录时为 null
+     */
+    @Override
+    public String selectFirstDay() {
+        return baseMapper.selectFirstDay();
+    }
+}
@@ -1,40 +1,73 @@
 package cc.mrbird.febs.cos.service.impl;
 
+import cc.mrbird.febs.common.domain.ImportProgress;
+import cc.mrbird.febs.common.exception.FebsException;
+import cc.mrbird.febs.common.handler.ChunkRowHandler;
 import cc.mrbird.febs.cos.dao.StorehouseInfoMapper;
 import cc.mrbird.febs.cos.entity.*;
 import cc.mrbird.febs.cos.dao.StockInfoMapper;
+import cc.mrbird.febs.cos.manager.InventoryLedger;
+import cc.mrbird.febs.cos.manager.StockBoard;
+import cc.mrbird.febs.cos.manager.StockNameIndex;
+import cc.mrbird.febs.cos.manager.StockPostedEvent;
 import cc.mrbird.febs.cos.service.*;
-import cn.hutool.core.collection.CollectionUtil;
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.util.NumberUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONArray;
 import cn.hutool.json.JSONUtil;
-import cn.hutool.poi.excel.ExcelReader;
 import cn.hutool.poi.excel.ExcelUtil;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.io.File;
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
  * @author FanK
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor(onConstructor = @__(@Autowired))
 public class StockInfoServiceImpl extends ServiceImpl<StockInfoMapper, StockInfo> implements IStockInfoService {
 
-    private final IStockPutService stockPutService;
+    private static final String HOME_CACHE_KEY = "home";
 
-    private final IGoodsBelongService goodsBelongService;
+    /**
+     * 导入时每块处理的行数
+     */
+    private static final int IMPORT_CHUNK_SIZE = 500;
+
+    private static final Map<String, String> IMPORT_HEADER_ALIAS = new HashMap<String, String>() {
+        {
+            put("物品名称", "name");
+            put("型号", "mode");
+            put("数量", "amount");
+            put("所属类型", "type");
+            put("单位", "unit");
+            put("单价", "price");
+            put("所属库房", "stock");
+        }
+    };
+
+    private final IStockPutService stockPutService;
 
     private final IBulletinInfoService bulletinInfoService;
 
@@ -44,15 +77,32 @@ public class StockInfoServiceImpl extends ServiceImpl<StockInfoMapper, StockInfo
 
     private final StorehouseInfoMapper storehouseInfoMapper;
 
+    private final InventoryLedger inventoryLedger;
+
+    private final StockBoard stockBoard;
+
+    private final StockNameIndex stockNameIndex;
+
+    @Autowired
+    @Qualifier("homeQueryExecutor")
+    private Executor homeQueryExecutor;
+
+    /**
+     * 首页公共数据缓存，过账或公告变更后立即失效
+     */
+    private final LoadingCache<String, LinkedHashMap<String, Object>> homeCache = CacheBuilder.newBuilder()
+            .expireAfterWrite(30, TimeUnit.SECONDS)
+            .build(CacheLoader.from(key -> this.loadHome()));
+
     @Override
     public IPage<LinkedHashMap<String, Object>> stockInfoByPage(Page page, StockInfo stockInfo) {
-        return baseMapper.stockInfoByPage(page, stockInfo);
+        return baseMapper.stockInfoByPage(page, stockInfo, stockNameIndex.searchName(stockInfo.getName()), stockNameIndex.searchModel(stockInfo.getType()));
     }
 
     // 获取库房信息
     @Override
     public List<LinkedHashMap<String, Object>> stockInfoByList(StockInfo stockInfo) {
-        return baseMapper.stockInfoByList(stockInfo);
+        return baseMapper.stockInfoByList(stockInfo, stockNameIndex.searchName(stockInfo.getName()), stockNameIndex.searchModel(stockInfo.getType()));
     }
 
     /**
@@ -62,83 +112,12 @@ public class StockInfoServiceImpl extends ServiceImpl<StockInfoMapper, StockInfo
      */
     @Override
     public LinkedHashMap<String, Object> selectBoard() {
-        // 返回数据
-        LinkedHashMap<String, Object> result = new LinkedHashMap<String, Object>() {
-            {
-                put("out", Collections.emptyList());
-                put("put", Collections.emptyList());
-                put("price", Collections.emptyList());
-                put("type", Collections.emptyList());
-            }
-        };
-
-        // 库房信息
-        List<StockInfo> stockInfoList = this.list(Wrappers.<StockInfo>lambdaQuery().eq(StockInfo::getIsIn, 0));
-        // 入库信息
-        List<StockInfo> putStockInfoList = this.list(Wrappers.<StockInfo>lambdaQuery().eq(StockInfo::getIsIn, 1));
-        // 出库信息
-        List<StockInfo> outStockInfoList = this.list(Wrappers.<StockInfo>lambdaQuery().eq(StockInfo::getIsIn, 2));
-
-        // 物品类型
-        List<ConsumableType> typeList = consumableTypeService.list();
-        Map<Integer, String> typeMap = typeList.stream().collect(Collectors.toMap(ConsumableType::getId, ConsumableType::getName));
-
-        // 出库统计
-        List<LinkedHashMap<String, Object>> outRateList = new ArrayList<>();
-        Map<Integer, List<StockInfo>> outRate = outStockInfoList.stream().collect(Collectors.groupingBy(StockInfo::getTypeId));
-        outRate.forEach((key, value) -> {
-            LinkedHashMap<String, Object> rateItem = new LinkedHashMap<String, Object>() {
-                {
-                    put("name", typeMap.get(key));
-                    put("value", value.size());
-                }
-            };
-            outRateList.add(rateItem);
-        });
-
-        // 入库统计
-        List<LinkedHashMap<String, Object>> putRateList = new ArrayList<>();
-        Map<Integer, List<StockInfo>> putRate = putStockInfoList.stream().collect(Collectors.groupingBy(StockInfo::getTypeId));
-        putRate.forEach((key, value) -> {
-            LinkedHashMap<String, Object> rateItem = new LinkedHashMap<String, Object>() {
-                {
-                    put("name", typeMap.get(key));
-                    put("value", value.size());
-                }
-            };
-            putRateList.add(rateItem);
-        });
-
-        // 库房统计
-        List<LinkedHashMap<String, Object>> stockRateList = new ArrayList<>();
-        // 库房价格统计
-        List<LinkedHashMap<String, Object>> stockPriceRateList = new ArrayList<>();
-        Map<Integer, List<StockInfo>> stockRate = stockInfoList.stream().collect(Collectors.groupingBy(StockInfo::getTypeId));
-        stockRate.forEach((key, value) -> {
-            LinkedHashMap<String, Object> rateItem = new LinkedHashMap<String, Object>() {
-                {
-                    put("name", typeMap.get(key));
-                    put("value", value.size());
-                }
-            };
-            LinkedHashMap<String, Object> priceRateItem = new LinkedHashMap<String, Object>() {
-                {
-                    put("name", typeMap.get(key));
-                    put("value", value.stream().map(e -> NumberUtil.mul(e.getAmount(), e.getPrice())).reduce(BigDecimal.ZERO, BigDecimal::add));
-                }
-            };
-            stockRateList.add(rateItem);
-            stockPriceRateList.add(rateItem);
-        });
-        result.put("out", outRateList);
-        result.put("put", putRateList);
-        result.put("price", stockPriceRateList);
-        result.put("type", stockRateList);
-        return result;
+        return stockBoard.snapshot();
     }
 
     @Override
-    public Boolean stockPut(String goods, String custodian, String putUser, String content, BigDecimal price) {
+    @Transactional(rollbackFor = Exception.class)
+    public Boolean stockPut(String goods, String custodian, String putUser, String content, BigDecimal price) throws FebsException {
         // 添加入库单
         StockPut stockPut = new StockPut();
         stockPut.setContent(content);
@@ -152,97 +131,90 @@ public class StockInfoServiceImpl extends ServiceImpl<StockInfoMapper, StockInfo
         // 添加入库
         JSONArray array = JSONUtil.parseArray(goods);
         List<GoodsBelong> goodsBelongList = JSONUtil.toList(array, GoodsBelong.class);
-        goodsBelongList.forEach(item -> {
-            item.setCreateDate(DateUtil.formatDateTime(new Date()));
-            item.setNum(stockPut.getNum());
-            // 判断库房物品是否存在
-            StockInfo stockInfo = this.getOne(Wrappers.<StockInfo>lambdaQuery().eq(StockInfo::getName, item.getName()).eq(StockInfo::getTypeId, item.getTypeId()).eq(StockInfo::getIsIn, 0));
-            if (stockInfo != null) {
-                // 更改库房数据
-                this.update(Wrappers.<StockInfo>lambdaUpdate().set(StockInfo::getAmount, stockInfo.getAmount() + item.getAmount())
-                        .set(StockInfo::getPrice, stockInfo.getPrice())
-                        .set(StockInfo::getStockId, item.getStockId())
-                        .eq(StockInfo::getId, stockInfo.getId()));
-            } else {
-                // 重新添加库房数据
-                StockInfo stock = new StockInfo();
-                stock.setName(item.getName());
-                stock.setAmount(item.getAmount());
-                stock.setCreateDate(DateUtil.formatDateTime(new Date()));
-                stock.setType(item.getType());
-                stock.setTypeId(item.getTypeId());
-                stock.setUnit(item.getUnit());
-                stock.setPrice(item.getPrice());
-                stock.setIsIn(0);
-                stock.setStockId(item.getStockId());
-                stockInfo = stock;
-                this.save(stock);
-            }
-            // 添加入库记录
-            StockInfo stockInfoPut = new StockInfo();
-            stockInfoPut.setParentId(stockInfo.getId());
-            stockInfoPut.setName(item.getName());
-            stockInfoPut.setAmount(item.getAmount());
-            stockInfoPut.setCreateDate(DateUtil.formatDateTime(new Date()));
-            stockInfoPut.setType(item.getType());
-            stockInfoPut.setTypeId(item.getTypeId());
-            stockInfoPut.setUnit(item.getUnit());
-            stockInfoPut.setPrice(item.getPrice());
-            stockInfoPut.setIsIn(1);
-            this.save(stockInfoPut);
-
-            // 添加所属信息
-            GoodsBelong goodsBelong = new GoodsBelong();
-            goodsBelong.setNum(stockPut.getNum());
-            goodsBelong.setCreateDate(DateUtil.formatDateTime(new Date()));
-            goodsBelong.setAmount(item.getAmount());
-            goodsBelong.setName(item.getName());
-            goodsBelong.setPrice(item.getPrice());
-            goodsBelong.setType(item.getType());
-            goodsBelong.setTypeId(item.getTypeId());
-            goodsBelong.setUnit(item.getUnit());
-            goodsBelongService.save(goodsBelong);
-        });
+        inventoryLedger.post(new LedgerDocument().setSource(LedgerDocument.PUT).setNum(stockPut.getNum()).setGoods(goodsBelongList));
         return true;
     }
 
     @Override
     public IPage<LinkedHashMap<String, Object>> stockInfoDetailPage(Page page, StockInfo stockInfo) {
-        return baseMapper.stockInfoDetailPage(page, stockInfo);
+        return baseMapper.stockInfoDetailPage(page, stockInfo, stockNameIndex.searchName(stockInfo.getName()), stockNameIndex.searchModel(stockInfo.getType()));
     }
 
     @Override
     public IPage<LinkedHashMap<String, Object>> getGoodsPutByUserId(Page page, StockInfo stockInfo) {
-        return baseMapper.getGoodsPutByUserId(page, stockInfo);
+        return baseMapper.getGoodsPutByUserId(page, stockInfo, stockNameIndex.searchName(stockInfo.getName()), stockNameIndex.searchModel(stockInfo.getType()));
     }
 
     @Override
     public LinkedHashMap<String, Object> home(Integer type, Integer userId) {
+        CompletableFuture<StudentInfo> studentInfo = type == 74
+                ? CompletableFuture.supplyAsync(() -> studentInfoService.getOne(Wrappers.<StudentInfo>lambdaQuery().eq(StudentInfo::getUserId, userId)), homeQueryExecutor)
+                : null;
+        LinkedHashMap<String, Object> home = homeCache.getUnchecked(HOME_CACHE_KEY);
+
         LinkedHashMap<String, Object> result = new LinkedHashMap<>();
-        result.put("bulletinList", bulletinInfoService.list());
-        if (type == 74) {
-            result.put("studentInfo", studentInfoService.getOne(Wrappers.<StudentInfo>lambdaQuery().eq(StudentInfo::getUserId, userId)));
+        result.put("bulletinList", home.get("bulletinList"));
+        if (studentInfo != null) {
+            result.put("studentInfo", studentInfo.join());
         }
-        result.put("stockPutRate", baseMapper.stockPutRate());
-        result.put("stockPutTypeRate", baseMapper.stockPutTypeRate());
-        result.put("stockOutRate", baseMapper.stockOutRate());
-        result.put("stockOutTypeRate", baseMapper.stockOutTypeRate());
-        result.put("stockInfo", baseMapper.stockInfoByMonth());
+        result.put("stockPutRate", home.get("stockPutRate"));
+        result.put("stockPutTypeRate", home.get("stockPutTypeRate"));
+        result.put("stockOutRate", home.get("stockOutRate"));
+        result.put("stockOutTypeRate", home.get("stockOutTypeRate"));
+        result.put("stockInfo", home.get("stockInfo"));
         return result;
     }
 
+    /**
+     * 清除首页统计缓存
+     */
+    @Override
+    public void evictHome() {
+        homeCache.invalidateAll();
+    }
+
+    /**
+     * 单据提交后清除首页统计缓存
+     *
+     * @param event 单据过账完成事件
+     */
+    @TransactionalEventListener
+    public void onPosted(StockPostedEvent event) {
+        this.evictHome();
+    }
+
+    /**
+     * 并行执行首页的公告与统计查询
+     *
+     * @return 首页公共数据
+     */
+    private LinkedHashMap<String, Object> loadHome() {
+        CompletableFuture<List<BulletinInfo>> bulletinList = CompletableFuture.supplyAsync(bulletinInfoService::list, homeQueryExecutor);
+        CompletableFuture<List<LinkedHashMap<String, Object>>> stockPutRate = CompletableFuture.supplyAsync(baseMapper::stockPutRate, homeQueryExecutor);
+        CompletableFuture<List<LinkedHashMap<String, Object>>> stockPutTypeRate = CompletableFuture.supplyAsync(baseMapper::stockPutTypeRate, homeQueryExecutor);
+        CompletableFuture<List<LinkedHashMap<String, Object>>> stockOutRate = CompletableFuture.supplyAsync(baseMapper::stockOutRate, homeQueryExecutor);
+        CompletableFuture<List<LinkedHashMap<String, Object>>> stockOutTypeRate = CompletableFuture.supplyAsync(baseMapper::stockOutTypeRate, homeQueryExecutor);
+        CompletableFuture<LinkedHashMap<String, Object>> stockInfo = CompletableFuture.supplyAsync(baseMapper::stockInfoByMonth, homeQueryExecutor);
+
+        LinkedHashMap<String, Object> home = new LinkedHashMap<>();
+        home.put("bulletinList", bulletinList.join());
+        home.put("stockPutRate", stockPutRate.join());
+        home.put("stockPutTypeRate", stockPutTypeRate.join());
+        home.put("stockOutRate", stockOutRate.join());
+        home.put("stockOutTypeRate", stockOutTypeRate.join());
+        home.put("stockInfo", stockInfo.join());
+        return home;
+    }
+
     /**
      * 导入信息列表
      *
-     * @param file 文件
-     * @return 结果
+     * @param file     导入文件
+     * @param progress 导入进度
+     * @return 错误信息，无错误时返回 null
      */
     @Override
-    public String importExcel(MultipartFile file) throws Exception {
-        ExcelReader excelReader = ExcelUtil.getReader(file.getInputStream(), 0);
-        setExcelHeaderAlias(excelReader);
-        List<StockInfoExcel> reportList = excelReader.read(1, 2, Integer.MAX_VALUE, StockInfoExcel.class);
-
+    public String importExcel(File file, ImportProgress progress) throws Exception {
         // 库房信息
         List<StorehouseInfo> storehouseInfoList = storehouseInfoMapper.selectList(Wrappers.<StorehouseInfo>lambdaQuery());
         Map<String, Integer> storeMap = storehouseInfoList.stream().collect(Collectors.toMap(StorehouseInfo::getName, StorehouseInfo::getId));
@@ -250,60 +222,71 @@ public class StockInfoServiceImpl extends ServiceImpl<StockInfoMapper, StockInfo
         List<ConsumableType> typeList = consumableTypeService.list();
         Map<String, Integer> typeMap = typeList.stream().collect(Collectors.toMap(ConsumableType::getName, ConsumableType::getId));
 
+        // 所有数据块共用一张入库单，首块有效数据过账前保存
+        StockPut stockPut = new StockPut();
+        stockPut.setCreateDate(DateUtil.formatDateTime(new Date()));
+        stockPut.setCustodian("管理员");
+        stockPut.setPutUser("管理员");
+        stockPut.setContent("");
+        stockPut.setPrice(BigDecimal.ZERO);
+        stockPut.setNum("PUT-" + System.currentTimeMillis());
 
-        StringBuilder error = new StringBuilder("");
-        if (CollectionUtil.isEmpty(reportList)) {
-            error.append("导入数据不得为空。");
-            return error.toString();
-        }
-
-        // 导入数据
-        List<StockInfo> reports = new ArrayList<>();
-        for (StockInfoExcel report : reportList) {
-            // 设置数据
-            StockInfo stockInfo = new StockInfo();
-            stockInfo.setName(report.getName());
-            stockInfo.setType(report.getMode());
-            Integer typeId = typeMap.get(report.getType());
-            if (typeId == null) {
-                error.append(report.getType()).append("物品类型未找到。");
+        ChunkRowHandler<StockInfoExcel> rowHandler = new ChunkRowHandler<>(IMPORT_HEADER_ALIAS, StockInfoExcel.class, IMPORT_CHUNK_SIZE, progress, (chunk, chunkProgress) -> {
+            List<GoodsBelong> goodsBelongList = new ArrayList<>(chunk.size());
+            BigDecimal totalPrice = BigDecimal.ZERO;
+            for (Map.Entry<Long, StockInfoExcel> entry : chunk.entrySet()) {
+                StockInfoExcel report = entry.getValue();
+                StringBuilder error = new StringBuilder();
+                if (StrUtil.isBlank(report.getName())) {
+                    error.append("物品名称不能为空。");
+                }
+                if (report.getAmount() == null) {
+                    error.append("数量不能为空。");
+                }
+                Integer typeId = typeMap.get(report.getType());
+                if (typeId == null) {
+                    error.append(report.getType()).append("物品类型未找到。");
+                }
+                // 库房信息
+                Integer stockId = storeMap.get(report.getStock());
+                if (stockId == null) {
+                    error.append(report.getStock()).append("未找到此库房。");
+                }
+                if (error.length() > 0) {
+                    chunkProgress.addError(entry.getKey(), error.toString());
+                    continue;
+                }
+                GoodsBelong goodsBelong = new GoodsBelong();
+                goodsBelong.setName(report.getName());
+                goodsBelong.setType(report.getMode());
+                goodsBelong.setTypeId(typeId);
+                goodsBelong.setStockId(stockId);
+                goodsBelong.setAmount(report.getAmount());
+                goodsBelong.setUnit(report.getUnit());
+                goodsBelong.setPrice(report.getPrice());
+                goodsBelongList.add(goodsBelong);
+                totalPrice = NumberUtil.add(totalPrice, NumberUtil.mul(report.getPrice(), report.getAmount()));
             }
-            stockInfo.setTypeId(typeId);
-            // 库房信息
-            Integer stockId = storeMap.get(report.getStock());
-            if (stockId == null) {
-                error.append(report.getStock()).append("未找到此库房。");
+            if (goodsBelongList.isEmpty()) {
+                return;
             }
-            stockInfo.setStockId(stockId);
-            stockInfo.setAmount(report.getAmount());
-            stockInfo.setUnit(report.getUnit());
-            stockInfo.setPrice(report.getPrice());
-            reports.add(stockInfo);
-        }
+            if (stockPut.getId() == null) {
+                stockPutService.save(stockPut);
+            }
+            inventoryLedger.post(new LedgerDocument().setSource(LedgerDocument.PUT).setNum(stockPut.getNum()).setGoods(goodsBelongList));
+            stockPut.setPrice(stockPut.getPrice().add(totalPrice));
+        });
+        // 按文件读取，不把整个 xlsx 读入内存
+        ExcelUtil.readBySax(file, 0, rowHandler);
+        rowHandler.finish();
 
-        BigDecimal totalPrice = BigDecimal.ZERO;
-        for (StockInfo expert : reports) {
-            totalPrice = NumberUtil.add(totalPrice, NumberUtil.mul(expert.getPrice(), expert.getAmount()));
+        if (stockPut.getId() != null) {
+            stockPutService.updateById(new StockPut().setId(stockPut.getId()).setPrice(stockPut.getPrice()));
         }
-        if (StrUtil.isEmpty(error.toString())) {
-            this.stockPut(JSONUtil.toJsonStr(reports), "管理员", "管理员", "", totalPrice);
-            return null;
+        log.info("库房信息导入完成，共{}行，错误{}行，{}行/秒", progress.getRows().get(), progress.getErrorCount().get(), progress.getThroughput());
+        if (progress.getRows().get() == 0) {
+            return "导入数据不得为空。";
         }
-        return error.toString();
-    }
-
-    /**
-     * 设置HeaderAlias
-     *
-     * @param excelReader HeaderAlias
-     */
-    public void setExcelHeaderAlias(ExcelReader excelReader) {
-        excelReader.addHeaderAlias("物品名称", "name");
-        excelReader.addHeaderAlias("型号", "mode");
-        excelReader.addHeaderAlias("数量", "amount");
-        excelReader.addHeaderAlias("所属类型", "type");
-        excelReader.addHeaderAlias("单位", "unit");
-        excelReader.addHeaderAlias("单价", "price");
-        excelReader.addHeaderAlias("所属库房", "stock");
+        return progress.getErrorMessage();
     }
 }
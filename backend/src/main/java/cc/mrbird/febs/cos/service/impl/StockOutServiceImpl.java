@@ -1,12 +1,14 @@
 package cc.mrbird.febs.cos.service.impl;
 
+import cc.mrbird.febs.common.exception.FebsException;
 import cc.mrbird.febs.cos.entity.ConsumableType;
 import cc.mrbird.febs.cos.entity.GoodsBelong;
+import cc.mrbird.febs.cos.entity.LedgerDocument;
 import cc.mrbird.febs.cos.entity.StockInfo;
 import cc.mrbird.febs.cos.entity.StockOut;
 import cc.mrbird.febs.cos.dao.StockOutMapper;
+import cc.mrbird.febs.cos.manager.InventoryLedger;
 import cc.mrbird.febs.cos.service.IConsumableTypeService;
-import cc.mrbird.febs.cos.service.IGoodsBelongService;
 import cc.mrbird.febs.cos.service.IStockInfoService;
 import cc.mrbird.febs.cos.service.IStockOutService;
 import cn.hutool.core.collection.CollectionUtil;
@@ -21,6 +23,7 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -34,12 +37,13 @@ public class StockOutServiceImpl extends ServiceImpl<StockOutMapper, StockOut> i
 
     private final IStockInfoService stockInfoService;
 
-    private final IGoodsBelongService goodsBelongService;
+    private final InventoryLedger inventoryLedger;
 
     private final IConsumableTypeService consumableTypeService;
 
     @Override
-    public Boolean stockOut(StockOut stockOut) {
+    @Transactional(rollbackFor = Exception.class)
+    public Boolean stockOut(StockOut stockOut) throws FebsException {
         // 添加出库单
         stockOut.setCreateDate(DateUtil.formatDateTime(new Date()));
         stockOut.setNum("OUT-" + System.currentTimeMillis());
@@ -48,38 +52,7 @@ public class StockOutServiceImpl extends ServiceImpl<StockOutMapper, StockOut> i
         // 出库
         JSONArray array = JSONUtil.parseArray(stockOut.getGoods());
         List<GoodsBelong> goodsBelongList = JSONUtil.toList(array, GoodsBelong.class);
-        goodsBelongList.forEach(item -> {
-            StockInfo stockInfo = stockInfoService.getOne(Wrappers.<StockInfo>lambdaQuery().eq(StockInfo::getName, item.getName()).eq(StockInfo::getIsIn, 0));
-            // 更改库房数据
-            stockInfoService.update(Wrappers.<StockInfo>lambdaUpdate().set(StockInfo::getAmount, stockInfo.getAmount() - item.getAmount()).eq(StockInfo::getId, stockInfo.getId()));
-            item.setNum(stockOut.getNum());
-
-            // 添加出库记录
-            StockInfo stockInfoOut = new StockInfo();
-            stockInfoOut.setParentId(stockInfo.getId());
-            stockInfoOut.setName(item.getName());
-            stockInfoOut.setAmount(item.getAmount());
-            stockInfoOut.setCreateDate(DateUtil.formatDateTime(new Date()));
-            stockInfoOut.setType(item.getType());
-            stockInfoOut.setTypeId(item.getTypeId());
-            stockInfoOut.setUnit(item.getUnit());
-            stockInfoOut.setPrice(item.getPrice());
-            stockInfoOut.setIsIn(2);
-            stockInfoOut.setToUserId(stockOut.getUserId());
-            stockInfoService.save(stockInfoOut);
-
-            // 添加所属信息
-            GoodsBelong goodsBelong = new GoodsBelong();
-            goodsBelong.setNum(stockOut.getNum());
-            goodsBelong.setCreateDate(DateUtil.formatDateTime(new Date()));
-            goodsBelong.setAmount(item.getAmount());
-            goodsBelong.setName(item.getName());
-            goodsBelong.setPrice(item.getPrice());
-            goodsBelong.setType(item.getType());
-            goodsBelong.setTypeId(item.getTypeId());
-            goodsBelong.setUnit(item.getUnit());
-            goodsBelongService.save(goodsBelong);
-        });
+        inventoryLedger.post(new LedgerDocument().setSource(LedgerDocument.OUT).setNum(stockOut.getNum()).setToUserId(stockOut.getUserId()).setGoods(goodsBelongList));
         return true;
     }
 
@@ -3,22 +3,25 @@ package cc.mrbird.febs.system.controller;
 import cc.mrbird.febs.common.annotation.Limit;
 import cc.mrbird.febs.common.authentication.JWTToken;
 import cc.mrbird.febs.common.authentication.JWTUtil;
+import cc.mrbird.febs.common.authentication.VerifiedTokenCache;
+import cc.mrbird.febs.common.controller.BaseController;
 import cc.mrbird.febs.common.domain.ActiveUser;
 import cc.mrbird.febs.common.domain.FebsConstant;
 import cc.mrbird.febs.common.domain.FebsResponse;
 import cc.mrbird.febs.common.exception.FebsException;
 import cc.mrbird.febs.common.properties.FebsProperties;
+import cc.mrbird.febs.common.service.ActiveUserService;
 import cc.mrbird.febs.common.service.RedisService;
 import cc.mrbird.febs.common.utils.*;
-import cc.mrbird.febs.system.dao.LoginLogMapper;
 import cc.mrbird.febs.system.domain.LoginLog;
 import cc.mrbird.febs.system.domain.User;
 import cc.mrbird.febs.system.domain.UserConfig;
+import cc.mrbird.febs.system.manager.LoginStatManager;
 import cc.mrbird.febs.system.manager.UserManager;
 import cc.mrbird.febs.system.service.LoginLogService;
 import cc.mrbird.febs.system.service.UserService;
 import com.baomidou.mybatisplus.core.toolkit.StringPool;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.shiro.authz.annotation.RequiresPermissions;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,7 +35,7 @@ import java.util.*;
 
 @Validated
 @RestController
-public class LoginController {
+public class LoginController extends BaseController {
 
     @Autowired
     private RedisService redisService;
@@ -43,11 +46,11 @@ public class LoginController {
     @Autowired
     private LoginLogService loginLogService;
     @Autowired
-    private LoginLogMapper loginLogMapper;
+    private LoginStatManager loginStatManager;
     @Autowired
     private FebsProperties properties;
     @Autowired
-    private ObjectMapper mapper;
+    private ActiveUserService activeUserService;
 
     @PostMapping("/login")
     @Limit(key = "login", period = 60, count = 20, name = "登录接口", prefix = "limit")
@@ -87,63 +90,52 @@ public class LoginController {
     }
 
     @GetMapping("index/{username}")
-    public FebsResponse index(@NotBlank(message = "{required}") @PathVariable String username) {
-        Map<String, Object> data = new HashMap<>();
+    public FebsResponse index(@NotBlank(message = "{required}") @PathVariable String username) throws Exception {
         // 获取系统访问记录
-        Long totalVisitCount = loginLogMapper.findTotalVisitCount();
-        data.put("totalVisitCount", totalVisitCount);
-        Long todayVisitCount = loginLogMapper.findTodayVisitCount();
-        data.put("todayVisitCount", todayVisitCount);
-        Long todayIp = loginLogMapper.findTodayIp();
-        data.put("todayIp", todayIp);
-        // 获取近期系统访问记录
-        List<Map<String, Object>> lastSevenVisitCount = loginLogMapper.findLastSevenDaysVisitCount(null);
-        data.put("lastSevenVisitCount", lastSevenVisitCount);
-        User param = new User();
-        param.setUsername(username);
-        List<Map<String, Object>> lastSevenUserVisitCount = loginLogMapper.findLastSevenDaysVisitCount(param);
-        data.put("lastSevenUserVisitCount", lastSevenUserVisitCount);
-        return new FebsResponse().data(data);
+        return new FebsResponse().data(loginStatManager.getVisitStatistics(username));
     }
 
+    /**
+     * 在线用户，传入 pageNum、pageSize 时分页返回 rows、total
+     */
     @RequiresPermissions("user:online")
     @GetMapping("online")
-    public FebsResponse userOnline(String username) throws Exception {
-        String now = DateUtil.formatFullTime(LocalDateTime.now());
-        Set<String> userOnlineStringSet = redisService.zrangeByScore(FebsConstant.ACTIVE_USERS_ZSET_PREFIX, now, "+inf");
-        List<ActiveUser> activeUsers = new ArrayList<>();
-        for (String userOnlineString : userOnlineStringSet) {
-            ActiveUser activeUser = mapper.readValue(userOnlineString, ActiveUser.class);
-            activeUser.setToken(null);
-            if (StringUtils.isNotBlank(username)) {
-                if (StringUtils.equalsIgnoreCase(username, activeUser.getUsername()))
-                    activeUsers.add(activeUser);
-            } else {
-                activeUsers.add(activeUser);
+    public FebsResponse userOnline(String username, Integer pageNum, Integer pageSize) throws Exception {
+        boolean paged = pageNum != null && pageSize != null && pageNum > 0 && pageSize > 0;
+        List<ActiveUser> activeUsers;
+        long total;
+        if (StringUtils.isNotBlank(username)) {
+            activeUsers = activeUserService.findByUsername(username);
+            total = activeUsers.size();
+            if (paged) {
+                int from = Math.min((pageNum - 1) * pageSize, activeUsers.size());
+                activeUsers = activeUsers.subList(from, Math.min(from + pageSize, activeUsers.size()));
             }
+        } else if (paged) {
+            activeUsers = activeUserService.findAll((pageNum - 1) * pageSize, pageSize);
+            total = activeUserService.count();
+        } else {
+            activeUsers = activeUserService.findAll(0, -1);
+            total = activeUsers.size();
+        }
+        activeUsers.forEach(activeUser -> activeUser.setToken(null));
+        if (!paged) {
+            return new FebsResponse().data(activeUsers);
         }
-        return new FebsResponse().data(activeUsers);
+        Page<ActiveUser> page = new Page<>(pageNum, pageSize, total);
+        page.setRecords(activeUsers);
+        return new FebsResponse().data(getDataTable(page));
     }
 
     @DeleteMapping("kickout/{id}")
     @RequiresPermissions("user:kickout")
     public void kickout(@NotBlank(message = "{required}") @PathVariable String id) throws Exception {
-        String now = DateUtil.formatFullTime(LocalDateTime.now());
-        Set<String> userOnlineStringSet = redisService.zrangeByScore(FebsConstant.ACTIVE_USERS_ZSET_PREFIX, now, "+inf");
-        ActiveUser kickoutUser = null;
-        String kickoutUserString = "";
-        for (String userOnlineString : userOnlineStringSet) {
-            ActiveUser activeUser = mapper.readValue(userOnlineString, ActiveUser.class);
-            if (StringUtils.equals(activeUser.getId(), id)) {
-                kickoutUser = activeUser;
-                kickoutUserString = userOnlineString;
-            }
-        }
-        if (kickoutUser != null && StringUtils.isNotBlank(kickoutUserString)) {
-            // 删除 zset中的记录
-            redisService.zrem(FebsConstant.ACTIVE_USERS_ZSET_PREFIX, kickoutUserString);
+        ActiveUser kickoutUser = activeUserService.remove(id);
+        if (kickoutUser != null) {
             // 删除对应的 token缓存
             redisService.del(FebsConstant.TOKEN_CACHE_PREFIX + kickoutUser.getToken() + "." + kickoutUser.getIp());
+            // 通知所有节点清除已认证 token缓存
+            redisService.publish(FebsConstant.TOKEN_REVOKE_CHANNEL, VerifiedTokenCache.REVOKE_TOKEN + kickoutUser.getToken() + "." + kickoutUser.getIp());
         }
     }
 
@@ -169,8 +161,8 @@ public class LoginController {
         activeUser.setToken(token.getToken());
         activeUser.setLoginAddress(AddressUtil.getCityInfo(ip));
 
-        // zset 存储登录用户，score 为过期时间戳
-        this.redisService.zadd(FebsConstant.ACTIVE_USERS_ZSET_PREFIX, Double.valueOf(token.getExipreAt()), mapper.writeValueAsString(activeUser));
+        // 保存在线会话，随 token 一同过期
+        this.activeUserService.save(activeUser, token.getExipreAt(), properties.getShiro().getJwtTimeOut() * 1000);
         // redis 中存储这个加密 token，key = 前缀 + 加密 token + .ip
         this.redisService.set(FebsConstant.TOKEN_CACHE_PREFIX + token.getToken() + StringPool.DOT + ip, token.getToken(), properties.getShiro().getJwtTimeOut() * 1000);
 
@@ -2,8 +2,8 @@ package cc.mrbird.febs.system.dao;
 
 
 import cc.mrbird.febs.system.domain.LoginLog;
-import cc.mrbird.febs.system.domain.User;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
 
 import java.util.List;
 import java.util.Map;
@@ -11,31 +11,35 @@ import java.util.Map;
 public interface LoginLogMapper extends BaseMapper<LoginLog> {
 
     /**
-     * 获取系统总访问次数
+     * 获取指定时间之前的系统总访问次数
      *
+     * @param end 截止时间（不含），yyyy-MM-dd HH:mm:ss
      * @return Long
      */
-    Long findTotalVisitCount();
+    Long findTotalVisitCount(@Param("end") String end);
 
     /**
-     * 获取系统今日访问次数
+     * 获取指定时间之前各用户访问次数
      *
-     * @return Long
+     * @param end 截止时间（不含），yyyy-MM-dd HH:mm:ss
+     * @return username、count
      */
-    Long findTodayVisitCount();
+    List<Map<String, Object>> findUserVisitCount(@Param("end") String end);
 
     /**
-     * 获取系统今日访问 IP数
+     * 获取指定日期以来、指定时间之前每天各用户的访问次数
      *
-     * @return Long
+     * @param start 开始日期，yyyy-MM-dd
+     * @param end   截止时间（不含），yyyy-MM-dd HH:mm:ss
+     * @return day（yyyyMMdd）、username、count
      */
-    Long findTodayIp();
+    List<Map<String, Object>> findDailyVisitCount(@Param("start") String start, @Param("end") String end);
 
     /**
-     * 获取系统近七天来的访问记录
+     * 获取指定日期以来每天各用户的访问 IP
      *
-     * @param user 用户
-     * @return 系统近七天来的访问记录
+     * @param start 开始日期，yyyy-MM-dd
+     * @return day（yyyyMMdd）、username、ip
      */
-    List<Map<String, Object>> findLastSevenDaysVisitCount(User user);
-}
\ No newline at end of file
+    List<Map<String, Object>> findDailyIp(@Param("start") String start);
+}
@@ -2,20 +2,31 @@ package cc.mrbird.febs.system.dao;
 
 import cc.mrbird.febs.system.domain.Menu;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
 
+import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 
 public interface MenuMapper extends BaseMapper<Menu> {
 
     List<Menu> findUserPermissions(String userName);
 
+    /**
+     * 批量查找用户权限，结果中的 username 为所属用户
+     *
+     * @param userIds 用户 ID集合
+     * @return 权限集合
+     */
+    List<Menu> findUsersPermissions(@Param("userIds") Collection<? extends Serializable> userIds);
+
     List<Menu> findUserMenus(String userName);
 
     /**
-     * 查找当前菜单/按钮关联的用户 ID
+     * 查找菜单/按钮关联的用户 ID
      *
-     * @param menuId menuId
+     * @param menuIds menuIds
      * @return 用户 ID集合
      */
-    List<String> findUserIdsByMenuId(String menuId);
+    List<String> findUserIdsByMenuIds(@Param("menuIds") Collection<String> menuIds);
 }
\ No newline at end of file
@@ -2,11 +2,22 @@ package cc.mrbird.febs.system.dao;
 
 import cc.mrbird.febs.system.domain.Role;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
 
+import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 
 public interface RoleMapper extends BaseMapper<Role> {
 	
 	List<Role> findUserRole(String userName);
+
+	/**
+	 * 批量查找用户角色，结果中的 username 为所属用户
+	 *
+	 * @param userIds 用户 ID集合
+	 * @return 角色集合
+	 */
+	List<Role> findUsersRole(@Param("userIds") Collection<? extends Serializable> userIds);
 	
 }
\ No newline at end of file
@@ -6,6 +6,10 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.apache.ibatis.annotations.Param;
 
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+
 public interface UserMapper extends BaseMapper<User> {
 
     IPage<User> findUserDetail(Page page, @Param("user") User user);
@@ -17,4 +21,12 @@ public interface UserMapper extends BaseMapper<User> {
      * @return 用户信息
      */
     User findDetail(String username);
+
+    /**
+     * 批量获取用户详情
+     *
+     * @param userIds 用户 ID集合
+     * @return 用户信息
+     */
+    List<User> findDetails(@Param("userIds") Collection<? extends Serializable> userIds);
 }
\ No newline at end of file
@@ -63,5 +63,6 @@ public class Menu implements Serializable {
 
     private transient String createTimeFrom;
     private transient String createTimeTo;
+    private transient String username;
 
 }
\ No newline at end of file
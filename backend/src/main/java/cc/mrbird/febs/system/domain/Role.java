@@ -41,5 +41,6 @@ public class Role implements Serializable {
     private transient String createTimeFrom;
     private transient String createTimeTo;
     private transient String menuId;
+    private transient String username;
 
 }
\ No newline at end of file
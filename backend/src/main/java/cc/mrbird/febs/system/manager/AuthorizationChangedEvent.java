@@ -0,0 +1,19 @@
+package cc.mrbird.febs.system.manager;
+
+import java.util.Collection;
+
+/**
+ * 角色或菜单变更事件，携带角色、权限需要重建的用户 ID
+ */
+public class AuthorizationChangedEvent {
+
+    private final Collection<String> userIds;
+
+    public AuthorizationChangedEvent(Collection<String> userIds) {
+        this.userIds = userIds;
+    }
+
+    public Collection<String> getUserIds() {
+        return userIds;
+    }
+}
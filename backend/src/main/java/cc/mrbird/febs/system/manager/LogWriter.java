@@ -0,0 +1,120 @@
+package cc.mrbird.febs.system.manager;
+
+import cc.mrbird.febs.system.domain.SysLog;
+import cc.mrbird.febs.system.service.LogService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.JoinPoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 操作日志写入，请求线程只入队，由定时任务补全日志内容后批量写入 t_log，
+ * 队列满时丢弃并计数，不阻塞请求
+ */
+@Slf4j
+@Service
+public class LogWriter {
+
+    /**
+     * 队列容量
+     */
+    private static final int CAPACITY = 10000;
+
+    /**
+     * 每批写入条数
+     */
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private LogService logService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Queue<LogEvent> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private Counter dropped;
+
+    @PostConstruct
+    public void init() {
+        dropped = meterRegistry.counter("log.audit.dropped");
+        meterRegistry.gauge("log.audit.pending", pending);
+    }
+
+    /**
+     * 提交一条操作日志
+     *
+     * @param point 切点
+     * @param log   已记录操作人、IP、耗时与时间的日志
+     */
+    public void offer(JoinPoint point, SysLog log) {
+        if (pending.incrementAndGet() > CAPACITY) {
+            pending.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        queue.offer(new LogEvent(point, log));
+    }
+
+    @Scheduled(fixedDelay = 1000)
+    public void flush() {
+        List<SysLog> batch = new ArrayList<>(BATCH_SIZE);
+        LogEvent event;
+        while ((event = queue.poll()) != null) {
+            pending.decrementAndGet();
+            try {
+                logService.fillLog(event.point, event.log);
+                batch.add(event.log);
+            } catch (Exception e) {
+                log.error("解析操作日志失败", e);
+                dropped.increment();
+            }
+            if (batch.size() >= BATCH_SIZE) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+
+    private void write(List<SysLog> batch) {
+        try {
+            logService.saveBatch(batch, BATCH_SIZE);
+        } catch (Exception e) {
+            log.error("批量保存操作日志失败，丢弃{}条", batch.size(), e);
+            dropped.increment(batch.size());
+        }
+    }
+
+    private static class LogEvent {
+
+        private final JoinPoint point;
+
+        private final SysLog log;
+
+        private LogEvent(JoinPoint point, SysLog log) {
+            this.point = point;
+            this.log = log;
+        }
+    }
+}
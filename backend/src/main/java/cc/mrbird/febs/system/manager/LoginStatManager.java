@@ -0,0 +1,226 @@
+package cc.mrbird.febs.system.manager;
+
+import cc.mrbird.febs.common.domain.FebsConstant;
+import cc.mrbird.febs.common.exception.RedisConnectException;
+import cc.mrbird.febs.common.service.RedisService;
+import cc.mrbird.febs.system.dao.LoginLogMapper;
+import cc.mrbird.febs.system.domain.LoginLog;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.Pipeline;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 系统访问统计，登录时累加 Redis 计数器：
+ * 总访问次数、每日访问次数、每日访问 IP（HyperLogLog），全局与按用户各一份，
+ * 首页读取计数器，不再扫描 t_login_log
+ */
+@Service
+public class LoginStatManager {
+
+    /**
+     * 首页展示的天数，包含今天
+     */
+    private static final int DAYS = 8;
+
+    /**
+     * 每日计数器保留时间
+     */
+    private static final long DAY_KEY_TIMEOUT = TimeUnit.DAYS.toMillis(DAYS + 1);
+
+    private static final DateTimeFormatter DAY_KEY_FORMATTER = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final DateTimeFormatter DAY_LABEL_FORMATTER = DateTimeFormatter.ofPattern("MM-dd");
+
+    /**
+     * 重建计数器时每次 pipeline 同步的记录数
+     */
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * 重建标记超时时间，重建节点宕机后由其它节点接手
+     */
+    private static final long REBUILDING_TIMEOUT = TimeUnit.MINUTES.toMillis(10);
+
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String TOTAL_KEY = FebsConstant.LOGIN_STAT_PREFIX + "total";
+
+    /**
+     * 计数器开始累加的时间，在此之前的登录由重建补齐
+     */
+    private static final String START_KEY = FebsConstant.LOGIN_STAT_PREFIX + "start";
+
+    /**
+     * 重建完成标记
+     */
+    private static final String REBUILT_KEY = FebsConstant.LOGIN_STAT_PREFIX + "rebuilt";
+
+    /**
+     * 重建中标记
+     */
+    private static final String REBUILDING_KEY = FebsConstant.LOGIN_STAT_PREFIX + "rebuilding";
+
+    @Autowired
+    private RedisService redisService;
+    @Autowired
+    private LoginLogMapper loginLogMapper;
+
+    /**
+     * 计数器重建：计数器只累加 START_KEY 之后的登录，t_login_log 中之前的记录由重建一次性 INCRBY 上去，
+     * 重建期间的登录照常累加，不会被覆盖。重建完成后最后写入 REBUILT_KEY，record 不会写这个 key
+     */
+    public void init() throws RedisConnectException {
+        if (redisService.exists(REBUILT_KEY)) {
+            return;
+        }
+        // 还没有登录时以当前时间为界
+        redisService.setnx(START_KEY, LocalDateTime.now().format(TIME_FORMATTER));
+        String end = redisService.get(START_KEY);
+        // 多个节点同时启动时只由一个节点重建
+        if (!redisService.setnx(REBUILDING_KEY, end, REBUILDING_TIMEOUT)) {
+            return;
+        }
+        String start = LocalDate.now().minusDays(DAYS - 1).toString();
+        redisService.pipelined(loginLogMapper.findUserVisitCount(end), BATCH_SIZE, (pipeline, row) -> {
+            String username = StringUtils.lowerCase((String) row.get("username"));
+            if (username != null) {
+                pipeline.incrBy(totalKey(username), ((Number) row.get("count")).longValue());
+            }
+        });
+        Map<String, Long> dayCount = new HashMap<>();
+        redisService.pipelined(loginLogMapper.findDailyVisitCount(start, end), BATCH_SIZE, (pipeline, row) -> {
+            String day = (String) row.get("day");
+            String username = StringUtils.lowerCase((String) row.get("username"));
+            long count = ((Number) row.get("count")).longValue();
+            dayCount.merge(day, count, Long::sum);
+            if (username != null) {
+                incrDay(pipeline, dayKey(day, username), count);
+            }
+        });
+        redisService.pipelined(dayCount.entrySet(), BATCH_SIZE,
+                (pipeline, entry) -> incrDay(pipeline, dayKey(entry.getKey(), null), entry.getValue()));
+        // HyperLogLog 重复添加不影响结果，不需要截止时间
+        redisService.pipelined(loginLogMapper.findDailyIp(start), BATCH_SIZE, (pipeline, row) -> {
+            String day = (String) row.get("day");
+            String username = StringUtils.lowerCase((String) row.get("username"));
+            String ip = (String) row.get("ip");
+            if (StringUtils.isNotBlank(ip)) {
+                addIp(pipeline, ipKey(day, null), ip);
+                if (username != null) {
+                    addIp(pipeline, ipKey(day, username), ip);
+                }
+            }
+        });
+        Long total = loginLogMapper.findTotalVisitCount(end);
+        redisService.pipelined(Collections.singletonList(total), 1, (pipeline, count) -> {
+            pipeline.incrBy(TOTAL_KEY, count);
+            pipeline.set(REBUILT_KEY, end);
+            pipeline.del(REBUILDING_KEY);
+        });
+    }
+
+    /**
+     * 记录一次登录
+     *
+     * @param loginLog 登录日志
+     */
+    public void record(LoginLog loginLog) throws RedisConnectException {
+        String username = StringUtils.lowerCase(loginLog.getUsername());
+        String day = LocalDate.now().format(DAY_KEY_FORMATTER);
+        // 登录时间按秒截断，与 login_time 的精度一致
+        String loginTime = LocalDateTime.ofInstant(loginLog.getLoginTime().toInstant(), ZoneId.systemDefault())
+                .format(TIME_FORMATTER);
+        // 所有计数器一次发送
+        redisService.pipelined(Collections.singletonList(loginLog), 1, (pipeline, log) -> {
+            pipeline.setnx(START_KEY, loginTime);
+            pipeline.incr(TOTAL_KEY);
+            pipeline.incr(totalKey(username));
+            incrDay(pipeline, dayKey(day, null), 1);
+            incrDay(pipeline, dayKey(day, username), 1);
+            if (StringUtils.isNotBlank(log.getIp())) {
+                addIp(pipeline, ipKey(day, null), log.getIp());
+                addIp(pipeline, ipKey(day, username), log.getIp());
+            }
+        });
+    }
+
+    /**
+     * 首页访问统计
+     *
+     * @param username 用户名
+     * @return totalVisitCount、todayVisitCount、todayIp、lastSevenVisitCount、lastSevenUserVisitCount
+     */
+    public Map<String, Object> getVisitStatistics(String username) throws RedisConnectException {
+        username = StringUtils.lowerCase(username);
+        LocalDate today = LocalDate.now();
+        String[] dayKeys = new String[DAYS * 2 + 1];
+        for (int i = 0; i < DAYS; i++) {
+            String day = today.minusDays(i).format(DAY_KEY_FORMATTER);
+            dayKeys[i] = dayKey(day, null);
+            dayKeys[DAYS + i] = dayKey(day, username);
+        }
+        dayKeys[DAYS * 2] = TOTAL_KEY;
+        List<String> values = redisService.mget(dayKeys);
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("totalVisitCount", toLong(values.get(DAYS * 2)));
+        data.put("todayVisitCount", toLong(values.get(0)));
+        data.put("todayIp", redisService.pfcount(ipKey(today.format(DAY_KEY_FORMATTER), null)));
+        data.put("lastSevenVisitCount", toSeries(today, values.subList(0, DAYS)));
+        data.put("lastSevenUserVisitCount", toSeries(today, values.subList(DAYS, DAYS * 2)));
+        return data;
+    }
+
+    private void incrDay(Pipeline pipeline, String key, long count) {
+        pipeline.incrBy(key, count);
+        pipeline.pexpire(key, DAY_KEY_TIMEOUT);
+    }
+
+    private void addIp(Pipeline pipeline, String key, String ip) {
+        pipeline.pfadd(key, ip);
+        pipeline.pexpire(key, DAY_KEY_TIMEOUT);
+    }
+
+    /**
+     * 与原 findLastSevenDaysVisitCount 的结果格式一致，只返回有访问的日期
+     */
+    private List<Map<String, Object>> toSeries(LocalDate today, List<String> values) {
+        List<Map<String, Object>> series = new ArrayList<>();
+        for (int i = DAYS - 1; i >= 0; i--) {
+            long count = toLong(values.get(i));
+            if (count > 0) {
+                Map<String, Object> item = new HashMap<>();
+                item.put("days", today.minusDays(i).format(DAY_LABEL_FORMATTER));
+                item.put("count", count);
+                series.add(item);
+            }
+        }
+        return series;
+    }
+
+    private long toLong(String value) {
+        return StringUtils.isNumeric(value) ? Long.parseLong(value) : 0L;
+    }
+
+    private String totalKey(String username) {
+        return TOTAL_KEY + "." + username;
+    }
+
+    private String dayKey(String day, String username) {
+        String key = FebsConstant.LOGIN_STAT_PREFIX + "day." + day;
+        return username == null ? key : key + "." + username;
+    }
+
+    private String ipKey(String day, String username) {
+        String key = FebsConstant.LOGIN_STAT_PREFIX + "ip." + day;
+        return username == null ? key : key + "." + username;
+    }
+}
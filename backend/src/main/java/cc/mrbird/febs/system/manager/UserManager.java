@@ -1,5 +1,6 @@
 package cc.mrbird.febs.system.manager;
 
+import cc.mrbird.febs.common.domain.FebsConstant;
 import cc.mrbird.febs.common.domain.router.RouterMeta;
 import cc.mrbird.febs.common.domain.router.VueRouter;
 import cc.mrbird.febs.common.service.CacheService;
@@ -13,17 +14,37 @@ import cc.mrbird.febs.system.service.MenuService;
 import cc.mrbird.febs.system.service.RoleService;
 import cc.mrbird.febs.system.service.UserConfigService;
 import cc.mrbird.febs.system.service.UserService;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 /**
  * 封装一些和 User相关的业务操作
  */
+@Slf4j
 @Service
 public class UserManager {
 
@@ -37,7 +58,41 @@ public class UserManager {
     private UserService userService;
     @Autowired
     private UserConfigService userConfigService;
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
+
+    /**
+     * 等待重建角色、权限缓存的用户 ID
+     */
+    private final Set<String> pendingUserIds = ConcurrentHashMap.newKeySet();
 
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    /**
+     * 角色集、权限集本地缓存，位于 Redis缓存之前。
+     * 任一节点更新 Redis中的角色或权限缓存时，通过 USER_AUTH_CHANNEL 通知所有节点失效
+     */
+    private final LoadingCache<String, Set<String>> roleCache = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .expireAfterWrite(10, TimeUnit.MINUTES)
+            .build(CacheLoader.from(this::loadUserRoles));
+
+    private final LoadingCache<String, Set<String>> permissionCache = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .expireAfterWrite(10, TimeUnit.MINUTES)
+            .build(CacheLoader.from(this::loadUserPermissions));
+
+    @PostConstruct
+    public void subscribeAuthorizationChange() {
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> this.evictAuthorizationCache(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(FebsConstant.USER_AUTH_CHANNEL));
+    }
 
     /**
      * 通过用户名获取用户基本信息
@@ -48,7 +103,8 @@ public class UserManager {
     public User getUser(String username) {
         return FebsUtil.selectCacheByTemplate(
                 () -> this.cacheService.getUser(username),
-                () -> this.userService.findByName(username));
+                () -> this.userService.findByName(username),
+                user -> this.cacheService.fillUser(username));
     }
 
     /**
@@ -58,10 +114,7 @@ public class UserManager {
      * @return 角色集合
      */
     public Set<String> getUserRoles(String username) {
-        List<Role> roleList = FebsUtil.selectCacheByTemplate(
-                () -> this.cacheService.getRoles(username),
-                () -> this.roleService.findUserRole(username));
-        return roleList.stream().map(Role::getRoleName).collect(Collectors.toSet());
+        return roleCache.getUnchecked(username.toLowerCase());
     }
 
     /**
@@ -71,9 +124,32 @@ public class UserManager {
      * @return 权限集合
      */
     public Set<String> getUserPermissions(String username) {
+        return permissionCache.getUnchecked(username.toLowerCase());
+    }
+
+    /**
+     * 清除本地缓存中的用户角色集合与权限集合
+     *
+     * @param username 用户名
+     */
+    public void evictAuthorizationCache(String username) {
+        roleCache.invalidate(username.toLowerCase());
+        permissionCache.invalidate(username.toLowerCase());
+    }
+
+    private Set<String> loadUserRoles(String username) {
+        List<Role> roleList = FebsUtil.selectCacheByTemplate(
+                () -> this.cacheService.getRoles(username),
+                () -> this.roleService.findUserRole(username),
+                roles -> this.cacheService.fillRoles(username, roles));
+        return roleList.stream().map(Role::getRoleName).collect(Collectors.toSet());
+    }
+
+    private Set<String> loadUserPermissions(String username) {
         List<Menu> permissionList = FebsUtil.selectCacheByTemplate(
                 () -> this.cacheService.getPermissions(username),
-                () -> this.menuService.findUserPermissions(username));
+                () -> this.menuService.findUserPermissions(username),
+                permissions -> this.cacheService.fillPermissions(username, permissions));
         return permissionList.stream().map(Menu::getPerms).collect(Collectors.toSet());
     }
 
@@ -109,7 +185,8 @@ public class UserManager {
     public UserConfig getUserConfig(String userId) {
         return FebsUtil.selectCacheByTemplate(
                 () -> this.cacheService.getUserConfig(userId),
-                () -> this.userConfigService.findByUserId(userId));
+                () -> this.userConfigService.findByUserId(userId),
+                this.cacheService::fillUserConfig);
     }
 
     /**
@@ -118,46 +195,86 @@ public class UserManager {
      * @param user user
      */
     public void loadUserRedisCache(User user) throws Exception {
-        // 缓存用户
-        cacheService.saveUser(user.getUsername());
-        // 缓存用户角色
-        cacheService.saveRoles(user.getUsername());
-        // 缓存用户权限
-        cacheService.savePermissions(user.getUsername());
-        // 缓存用户个性化配置
-        cacheService.saveUserConfigs(String.valueOf(user.getUserId()));
+        // 缓存用户、用户角色、用户权限、用户个性化配置，一次发送
+        cacheService.saveUserCaches(Collections.singletonList(user.getUserId()));
+    }
+
+    /**
+     * 预热全部用户的 Redis缓存，按批次集合查询用户、角色、权限与个性化配置
+     */
+    public void loadAllUserRedisCache() throws Exception {
+        List<Long> userIds = userService.list(new LambdaQueryWrapper<User>().select(User::getUserId)).stream()
+                .map(User::getUserId).collect(Collectors.toList());
+        cacheService.loadUserCaches(userIds);
     }
 
     /**
-     * 将用户角色和权限添加到 Redis缓存中
+     * 将用户角色和权限添加到 Redis缓存中，
+     * 在当前事务提交后异步重建，不阻塞角色、菜单的编辑请求
      *
      * @param userIds userIds
      */
-    public void loadUserPermissionRoleRedisCache(List<String> userIds) throws Exception {
-        for (String userId : userIds) {
-            User user = userService.getById(userId);
-            // 缓存用户角色
-            cacheService.saveRoles(user.getUsername());
-            // 缓存用户权限
-            cacheService.savePermissions(user.getUsername());
+    public void loadUserPermissionRoleRedisCache(List<String> userIds) {
+        if (!userIds.isEmpty()) {
+            applicationEventPublisher.publishEvent(new AuthorizationChangedEvent(userIds));
         }
     }
 
+    /**
+     * 合并待重建的用户，同一时间只有一个重建任务，
+     * 任务执行期间新增的用户由该任务继续处理
+     *
+     * @param event 角色或菜单变更事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAuthorizationChanged(AuthorizationChangedEvent event) {
+        pendingUserIds.addAll(event.getUserIds());
+        if (rebuilding.compareAndSet(false, true)) {
+            taskExecutor.execute(this::rebuildAuthorizations);
+        }
+    }
+
+    private void rebuildAuthorizations() {
+        try {
+            List<String> userIds;
+            while (!(userIds = drainPendingUserIds()).isEmpty()) {
+                try {
+                    // 按批次集合查询角色、权限，pipeline 写入并通知各节点失效本地缓存
+                    cacheService.saveAuthorizations(userIds);
+                    log.info("重建{}个用户的角色、权限缓存", userIds.size());
+                } catch (Exception e) {
+                    log.error("重建用户角色、权限缓存失败，用户数：{}", userIds.size(), e);
+                }
+            }
+        } finally {
+            rebuilding.set(false);
+            // 释放标记前刚加入的用户
+            if (!pendingUserIds.isEmpty() && rebuilding.compareAndSet(false, true)) {
+                taskExecutor.execute(this::rebuildAuthorizations);
+            }
+        }
+    }
+
+    private List<String> drainPendingUserIds() {
+        List<String> userIds = new ArrayList<>();
+        Iterator<String> iterator = pendingUserIds.iterator();
+        while (iterator.hasNext()) {
+            userIds.add(iterator.next());
+            iterator.remove();
+        }
+        return userIds;
+    }
+
     /**
      * 通过用户 id集合批量删除用户 Redis缓存
      *
      * @param userIds userIds
      */
     public void deleteUserRedisCache(String... userIds) throws Exception {
-        for (String userId : userIds) {
-            User user = userService.getById(userId);
-            if (user != null) {
-                cacheService.deleteUser(user.getUsername());
-                cacheService.deleteRoles(user.getUsername());
-                cacheService.deletePermissions(user.getUsername());
-            }
-            cacheService.deleteUserConfigs(userId);
+        if (userIds.length == 0) {
+            return;
         }
+        cacheService.deleteUserCaches(new ArrayList<>(userService.listByIds(Arrays.asList(userIds))));
     }
 
 }
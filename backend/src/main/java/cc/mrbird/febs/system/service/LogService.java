@@ -5,8 +5,7 @@ import cc.mrbird.febs.system.domain.SysLog;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import org.aspectj.lang.ProceedingJoinPoint;
-import org.springframework.scheduling.annotation.Async;
+import org.aspectj.lang.JoinPoint;
 
 
 public interface LogService extends IService<SysLog> {
@@ -15,6 +14,11 @@ public interface LogService extends IService<SysLog> {
 
     void deleteLogs(String[] logIds);
 
-    @Async
-    void saveLog(ProceedingJoinPoint point, SysLog log) throws JsonProcessingException;
+    /**
+     * 补全操作描述、方法、参数与地点，由日志写入线程调用
+     *
+     * @param point 切点
+     * @param log   已记录操作人、IP、耗时与时间的日志
+     */
+    void fillLog(JoinPoint point, SysLog log) throws JsonProcessingException;
 }
@@ -3,6 +3,8 @@ package cc.mrbird.febs.system.service;
 import cc.mrbird.febs.system.domain.Menu;
 import com.baomidou.mybatisplus.extension.service.IService;
 
+import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -10,6 +12,8 @@ public interface MenuService extends IService<Menu> {
 
     List<Menu> findUserPermissions(String username);
 
+    List<Menu> findUsersPermissions(Collection<? extends Serializable> userIds);
+
     List<Menu> findUserMenus(String username);
 
     Map<String, Object> findMenus(Menu menu);
@@ -5,6 +5,8 @@ import cc.mrbird.febs.system.domain.Role;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.service.IService;
 
+import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 
 public interface RoleService extends IService<Role> {
@@ -13,6 +15,8 @@ public interface RoleService extends IService<Role> {
 
     List<Role> findUserRole(String userName);
 
+    List<Role> findUsersRole(Collection<? extends Serializable> userIds);
+
     Role findByName(String roleName);
 
     void createRole(Role role);
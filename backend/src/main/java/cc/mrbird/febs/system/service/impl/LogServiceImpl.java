@@ -16,7 +16,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.LocalVariableTableParameterNameDiscoverer;
@@ -28,6 +28,7 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.Serializable;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Service("logService")
@@ -37,6 +38,13 @@ public class LogServiceImpl extends ServiceImpl<LogMapper, SysLog> implements Lo
     @Autowired
     ObjectMapper objectMapper;
 
+    private final LocalVariableTableParameterNameDiscoverer parameterNameDiscoverer = new LocalVariableTableParameterNameDiscoverer();
+
+    /**
+     * 方法参数名缓存，避免每次解析字节码
+     */
+    private final Map<Method, List<String>> parameterNameCache = new ConcurrentHashMap<>();
+
     @Override
     public IPage<SysLog> findLogs(QueryRequest request, SysLog sysLog) {
         try {
@@ -75,8 +83,7 @@ public class LogServiceImpl extends ServiceImpl<LogMapper, SysLog> implements Lo
     }
 
     @Override
-    @Transactional
-    public void saveLog(ProceedingJoinPoint joinPoint, SysLog log) throws JsonProcessingException {
+    public void fillLog(JoinPoint joinPoint, SysLog log) throws JsonProcessingException {
 
         MethodSignature signature = (MethodSignature) joinPoint.getSignature();
         Method method = signature.getMethod();
@@ -93,17 +100,16 @@ public class LogServiceImpl extends ServiceImpl<LogMapper, SysLog> implements Lo
         // 请求的方法参数值
         Object[] args = joinPoint.getArgs();
         // 请求的方法参数名称
-        LocalVariableTableParameterNameDiscoverer u = new LocalVariableTableParameterNameDiscoverer();
-        String[] paramNames = u.getParameterNames(method);
-        if (args != null && paramNames != null) {
+        List<String> paramNames = parameterNameCache.computeIfAbsent(method, key -> {
+            String[] names = parameterNameDiscoverer.getParameterNames(key);
+            return names == null ? Collections.emptyList() : Arrays.asList(names);
+        });
+        if (args != null && !paramNames.isEmpty()) {
             StringBuilder params = new StringBuilder();
-            params = handleParams(params, args, Arrays.asList(paramNames));
+            params = handleParams(params, args, paramNames);
             log.setParams(params.toString());
         }
-        log.setCreateTime(new Date());
         log.setLocation(AddressUtil.getCityInfo(log.getIp()));
-        // 保存系统日志
-        save(log);
     }
 
     private StringBuilder handleParams(StringBuilder params, Object[] args, List paramNames) throws JsonProcessingException {
@@ -6,19 +6,22 @@ import cc.mrbird.febs.common.domain.ActiveUser;
 import cc.mrbird.febs.common.domain.FebsConstant;
 import cc.mrbird.febs.common.domain.FebsResponse;
 import cc.mrbird.febs.common.exception.FebsException;
+import cc.mrbird.febs.common.exception.RedisConnectException;
 import cc.mrbird.febs.common.properties.FebsProperties;
+import cc.mrbird.febs.common.service.ActiveUserService;
 import cc.mrbird.febs.common.service.RedisService;
 import cc.mrbird.febs.common.utils.*;
 import cc.mrbird.febs.system.dao.LoginLogMapper;
 import cc.mrbird.febs.system.domain.LoginLog;
 import cc.mrbird.febs.system.domain.User;
 import cc.mrbird.febs.system.domain.UserConfig;
+import cc.mrbird.febs.system.manager.LoginStatManager;
 import cc.mrbird.febs.system.manager.UserManager;
 import cc.mrbird.febs.system.service.LoginLogService;
 import cc.mrbird.febs.system.service.UserService;
 import com.baomidou.mybatisplus.core.toolkit.StringPool;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -32,6 +35,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
+@Slf4j
 @Service("loginLogService")
 @Transactional(propagation = Propagation.SUPPORTS, readOnly = true, rollbackFor = Exception.class)
 public class LoginLogServiceImpl extends ServiceImpl<LoginLogMapper, LoginLog> implements LoginLogService {
@@ -49,11 +53,14 @@ public class LoginLogServiceImpl extends ServiceImpl<LoginLogMapper, LoginLog> i
     private RedisService redisService;
 
     @Autowired
-    private ObjectMapper mapper;
+    private ActiveUserService activeUserService;
 
     @Autowired
     private UserManager userManager;
 
+    @Autowired
+    private LoginStatManager loginStatManager;
+
     @Override
     @Transactional
     public void saveLoginLog(LoginLog loginLog) {
@@ -63,6 +70,11 @@ public class LoginLogServiceImpl extends ServiceImpl<LoginLogMapper, LoginLog> i
         loginLog.setIp(ip);
         loginLog.setLocation(AddressUtil.getCityInfo(ip));
         this.save(loginLog);
+        try {
+            loginStatManager.record(loginLog);
+        } catch (RedisConnectException e) {
+            log.warn("更新访问统计失败，{}", e.getMessage());
+        }
     }
 
     @Override
@@ -104,8 +116,8 @@ public class LoginLogServiceImpl extends ServiceImpl<LoginLogMapper, LoginLog> i
         activeUser.setToken(token.getToken());
         activeUser.setLoginAddress(AddressUtil.getCityInfo(ip));
 
-        // zset 存储登录用户，score 为过期时间戳
-        this.redisService.zadd(FebsConstant.ACTIVE_USERS_ZSET_PREFIX, Double.valueOf(token.getExipreAt()), mapper.writeValueAsString(activeUser));
+        // 保存在线会话，随 token 一同过期
+        this.activeUserService.save(activeUser, token.getExipreAt(), properties.getShiro().getJwtTimeOut() * 1000);
         // redis 中存储这个加密 token，key = 前缀 + 加密 token + .ip
         this.redisService.set(FebsConstant.TOKEN_CACHE_PREFIX + token.getToken() + StringPool.DOT + ip, token.getToken(), properties.getShiro().getJwtTimeOut() * 1000);
 
@@ -18,6 +18,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.Serializable;
 import java.util.*;
 
 @Slf4j
@@ -33,6 +34,11 @@ public class MenuServiceImpl extends ServiceImpl<MenuMapper, Menu> implements Me
         return this.baseMapper.findUserPermissions(username);
     }
 
+    @Override
+    public List<Menu> findUsersPermissions(Collection<? extends Serializable> userIds) {
+        return this.baseMapper.findUsersPermissions(userIds);
+    }
+
     @Override
     public List<Menu> findUserMenus(String username) {
         return this.baseMapper.findUserMenus(username);
@@ -92,7 +98,7 @@ public class MenuServiceImpl extends ServiceImpl<MenuMapper, Menu> implements Me
         baseMapper.updateById(menu);
 
         // 查找与这些菜单/按钮关联的用户
-        List<String> userIds = this.baseMapper.findUserIdsByMenuId(String.valueOf(menu.getMenuId()));
+        List<String> userIds = this.baseMapper.findUserIdsByMenuIds(Collections.singletonList(String.valueOf(menu.getMenuId())));
         // 重新将这些用户的角色和权限缓存到 Redis中
         this.userManager.loadUserPermissionRoleRedisCache(userIds);
     }
@@ -100,13 +106,12 @@ public class MenuServiceImpl extends ServiceImpl<MenuMapper, Menu> implements Me
     @Override
     @Transactional
     public void deleteMeuns(String[] menuIds) throws Exception {
-        this.delete(Arrays.asList(menuIds));
-        for (String menuId : menuIds) {
-            // 查找与这些菜单/按钮关联的用户
-            List<String> userIds = this.baseMapper.findUserIdsByMenuId(String.valueOf(menuId));
-            // 重新将这些用户的角色和权限缓存到 Redis中
-            this.userManager.loadUserPermissionRoleRedisCache(userIds);
-        }
+        List<String> deletedIds = new ArrayList<>();
+        this.delete(Arrays.asList(menuIds), deletedIds);
+        // 查找与这些菜单/按钮（含子菜单）关联的用户
+        List<String> userIds = this.baseMapper.findUserIdsByMenuIds(deletedIds);
+        // 重新将这些用户的角色和权限缓存到 Redis中
+        this.userManager.loadUserPermissionRoleRedisCache(userIds);
     }
 
     private void buildTrees(List<Tree<Menu>> trees, List<Menu> menus, List<String> ids) {
@@ -155,8 +160,9 @@ public class MenuServiceImpl extends ServiceImpl<MenuMapper, Menu> implements Me
     }
 
 
-    private void delete(List<String> menuIds) {
+    private void delete(List<String> menuIds, List<String> deletedIds) {
         removeByIds(menuIds);
+        deletedIds.addAll(menuIds);
 
         LambdaQueryWrapper<Menu> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.in(Menu::getParentId, menuIds);
@@ -164,7 +170,7 @@ public class MenuServiceImpl extends ServiceImpl<MenuMapper, Menu> implements Me
         if (CollectionUtils.isNotEmpty(menus)) {
             List<String> menuIdList = new ArrayList<>();
             menus.forEach(m -> menuIdList.add(String.valueOf(m.getMenuId())));
-            this.delete(menuIdList);
+            this.delete(menuIdList, deletedIds);
         }
     }
 
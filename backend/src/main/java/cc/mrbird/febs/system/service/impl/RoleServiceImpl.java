@@ -22,7 +22,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.Serializable;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -67,6 +69,11 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
         return baseMapper.findUserRole(userName);
     }
 
+    @Override
+    public List<Role> findUsersRole(Collection<? extends Serializable> userIds) {
+        return baseMapper.findUsersRole(userIds);
+    }
+
     @Override
     public Role findByName(String roleName) {
         return baseMapper.selectOne(new LambdaQueryWrapper<Role>().eq(Role::getRoleName, roleName));
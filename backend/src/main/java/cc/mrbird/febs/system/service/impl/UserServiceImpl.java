@@ -28,6 +28,7 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -114,9 +115,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         setUserRoles(user, roles);
 
         // 重新将用户信息，用户角色信息，用户权限信息 加载到 redis中
-        cacheService.saveUser(user.getUsername());
-        cacheService.saveRoles(user.getUsername());
-        cacheService.savePermissions(user.getUsername());
+        cacheService.saveUserCaches(Collections.singletonList(user.getUserId()));
     }
 
     @Override
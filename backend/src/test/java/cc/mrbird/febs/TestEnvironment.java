@@ -0,0 +1,42 @@
+package cc.mrbird.febs;
+
+import org.junit.Assume;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/**
+ * 集成测试依赖 application.yml 中配置的本地 MySQL 与 Redis，
+ * 未启动时跳过测试而不是报错
+ */
+public final class TestEnvironment {
+
+    private static final String HOST = "127.0.0.1";
+
+    private static final int MYSQL_PORT = 3306;
+
+    private static final int REDIS_PORT = 6379;
+
+    private static final int CONNECT_TIMEOUT = 500;
+
+    private TestEnvironment() {
+    }
+
+    /**
+     * 在 @BeforeClass 中调用，MySQL 或 Redis 不可用时跳过整个测试类
+     */
+    public static void assumeAvailable() {
+        Assume.assumeTrue("本地 MySQL 未启动", reachable(MYSQL_PORT));
+        Assume.assumeTrue("本地 Redis 未启动", reachable(REDIS_PORT));
+    }
+
+    private static boolean reachable(int port) {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(HOST, port), CONNECT_TIMEOUT);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package cc.mrbird.febs.common.authentication;
+
+import cc.mrbird.febs.common.properties.ShiroProperties;
+import com.baomidou.mybatisplus.core.toolkit.StringPool;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assume;
+import org.junit.Test;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * AnonUrlMatcher 与 AntPathMatcher 的匹配结果须一致，重点是 /** 前缀在路径分隔符处的边界。
+ * 基准测试比较预编译匹配与改造前每次请求拆分 anonUrl 后逐条 AntPathMatcher 匹配的耗时，
+ * 需 -Dfebs.benchmark=true 开启
+ */
+@Slf4j
+public class AnonUrlMatcherTest {
+
+    /**
+     * 与 application.yml 相同的免认证地址，另加常见的静态资源与接口文档规则
+     */
+    private static final String ANON_URL = "/login,/logout/**,/regist,/user/check/**,/file/**,/imagesWeb/**,"
+            + "/cos/stock-info/**,/cos/face/**,/actuator/health,/swagger-ui.html,/swagger-resources/**,"
+            + "/v2/api-docs,/webjars/**,/druid/**,/static/*.js,/static/*.css,/**/favicon.ico,/captcha/*";
+
+    private static final List<String> URIS = Arrays.asList(
+            "/login", "/login/", "/loginx", "/logout", "/logout/", "/logout/admin",
+            "/user/check/admin", "/user/check", "/user/checkx", "/user",
+            "/file/upload/a.png", "/imagesWeb/2024/01/a.jpg", "/cos/stock-info/page", "/cos/stock-infox",
+            "/cos/face/verify", "/cos/stock-out/stockOut", "/actuator/health", "/actuator/metrics",
+            "/swagger-ui.html", "/swagger-resources/configuration/ui", "/v2/api-docs", "/webjars/js/app.js",
+            "/static/app.js", "/static/js/app.js", "/static/app.css", "/favicon.ico", "/a/b/favicon.ico",
+            "/captcha/123", "/captcha/1/2", "/system/user", "/", "");
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Test
+    public void anyPrefixMatchesAtPathBoundary() {
+        AnonUrlMatcher matcher = matcher("/foo/**");
+        assertTrue(matcher.match("/foo"));
+        assertTrue(matcher.match("/foo/"));
+        assertTrue(matcher.match("/foo/bar"));
+        assertTrue(matcher.match("/foo/bar/baz"));
+        assertFalse(matcher.match("/foobar"));
+        assertFalse(matcher.match("/fo"));
+        assertFalse(matcher.match("/bar/foo"));
+    }
+
+    @Test
+    public void rootAnyMatchesEveryPath() {
+        AnonUrlMatcher matcher = matcher("/**");
+        assertTrue(matcher.match("/"));
+        assertTrue(matcher.match("/foo"));
+        assertTrue(matcher.match("/foo/"));
+        assertTrue(matcher.match("/foo/bar"));
+    }
+
+    @Test
+    public void exactUrlDoesNotMatchTrailingSlash() {
+        AnonUrlMatcher matcher = matcher("/foo");
+        assertTrue(matcher.match("/foo"));
+        assertFalse(matcher.match("/foo/"));
+        assertFalse(matcher.match("/foo/bar"));
+    }
+
+    @Test
+    public void agreesWithAntPathMatcher() {
+        List<String> patterns = Arrays.asList("/foo/**", "/**", "/foo", "/foo/*", ANON_URL);
+        for (String anonUrl : patterns) {
+            AnonUrlMatcher matcher = matcher(anonUrl);
+            for (String uri : URIS) {
+                assertEquals(anonUrl + " → " + uri, matchByAntPath(anonUrl, uri), matcher.match(uri));
+            }
+        }
+    }
+
+    @Test
+    public void recompilesWhenAnonUrlChanges() {
+        ShiroProperties properties = new ShiroProperties();
+        properties.setAnonUrl("/foo/**");
+        AnonUrlMatcher matcher = new AnonUrlMatcher(properties);
+        assertTrue(matcher.match("/foo/bar"));
+        properties.setAnonUrl("/bar/**");
+        assertFalse(matcher.match("/foo/bar"));
+        assertTrue(matcher.match("/bar/foo"));
+    }
+
+    @Test
+    public void benchmarkAgainstSplitAndMatch() {
+        Assume.assumeTrue("需 -Dfebs.benchmark=true 开启", Boolean.getBoolean("febs.benchmark"));
+        int iterations = Integer.getInteger("febs.benchmark.iterations", 200000);
+        AnonUrlMatcher matcher = matcher(ANON_URL);
+        int[] hits = new int[2];
+        // 预热
+        for (int i = 0; i < iterations; i++) {
+            String uri = URIS.get(i % URIS.size());
+            hits[0] += matchByAntPath(ANON_URL, uri) ? 1 : 0;
+            hits[1] += matcher.match(uri) ? 1 : 0;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            hits[0] += matchByAntPath(ANON_URL, URIS.get(i % URIS.size())) ? 1 : 0;
+        }
+        long splitAndMatch = (System.nanoTime() - start) / iterations;
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            hits[1] += matcher.match(URIS.get(i % URIS.size())) ? 1 : 0;
+        }
+        long compiled = (System.nanoTime() - start) / iterations;
+
+        log.info("{}条免认证规则匹配{}次：逐条 AntPathMatcher {} ns/次，预编译 {} ns/次",
+                StringUtils.countMatches(ANON_URL, StringPool.COMMA) + 1, iterations, splitAndMatch, compiled);
+        assertEquals(hits[0], hits[1]);
+        assertTrue("预编译匹配应快于逐条匹配", compiled < splitAndMatch);
+    }
+
+    private AnonUrlMatcher matcher(String anonUrl) {
+        ShiroProperties properties = new ShiroProperties();
+        properties.setAnonUrl(anonUrl);
+        return new AnonUrlMatcher(properties);
+    }
+
+    /**
+     * 改造前 JWTFilter 的匹配方式，每次请求拆分 anonUrl 后逐条匹配
+     */
+    private boolean matchByAntPath(String anonUrl, String uri) {
+        boolean match = false;
+        for (String url : StringUtils.splitByWholeSeparatorPreserveAllTokens(anonUrl, StringPool.COMMA)) {
+            if (pathMatcher.match(url, uri)) {
+                match = true;
+            }
+        }
+        return match;
+    }
+}
@@ -0,0 +1,123 @@
+package cc.mrbird.febs.common.authentication;
+
+import cc.mrbird.febs.TestEnvironment;
+import cc.mrbird.febs.common.domain.FebsConstant;
+import cc.mrbird.febs.common.service.RedisService;
+import cc.mrbird.febs.common.utils.FebsUtil;
+import cc.mrbird.febs.system.dao.UserMapper;
+import cc.mrbird.febs.system.domain.User;
+import cc.mrbird.febs.system.manager.UserManager;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * token 认证基准：同一个有效 token 分别按改造前的方式认证（每次加密 token、查询 Redis、
+ * 获取用户并校验签名）与经 VerifiedTokenCache 命中后的 ShiroRealm.doGetAuthenticationInfo，
+ * 记录每次认证的平均耗时与每秒认证次数。
+ * 需 -Dfebs.benchmark=true 开启，次数可用 -Dfebs.benchmark.iterations 调整
+ */
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ShiroRealmBenchmarkTest {
+
+    private static final int ITERATIONS = Integer.getInteger("febs.benchmark.iterations", 10000);
+
+    private static final int WARMUP = 1000;
+
+    private static final String IP = "127.0.0.1";
+
+    @Autowired
+    private ShiroRealm shiroRealm;
+    @Autowired
+    private RedisService redisService;
+    @Autowired
+    private UserManager userManager;
+    @Autowired
+    private UserMapper userMapper;
+
+    private String token;
+
+    private String redisKey;
+
+    @BeforeClass
+    public static void assumeEnvironment() {
+        Assume.assumeTrue("需 -Dfebs.benchmark=true 开启", Boolean.getBoolean("febs.benchmark"));
+        TestEnvironment.assumeAvailable();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        User user = userMapper.selectOne(Wrappers.<User>lambdaQuery().last("LIMIT 1"));
+        Assume.assumeNotNull(user);
+        token = JWTUtil.sign(user.getUsername(), user.getPassword());
+        String encryptToken = FebsUtil.encryptToken(token);
+        redisKey = FebsConstant.TOKEN_CACHE_PREFIX + encryptToken + "." + IP;
+        redisService.set(redisKey, encryptToken, 600000L);
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(IP);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        RequestContextHolder.resetRequestAttributes();
+        if (redisKey != null) {
+            redisService.del(redisKey);
+        }
+    }
+
+    @Test
+    public void cachedAuthenticationOutpacesFullVerification() throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            authenticateUncached();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            authenticateUncached();
+        }
+        long uncached = (System.nanoTime() - start) / ITERATIONS;
+
+        JWTToken jwtToken = new JWTToken(token);
+        for (int i = 0; i < WARMUP; i++) {
+            assertNotNull(shiroRealm.doGetAuthenticationInfo(jwtToken));
+        }
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            shiroRealm.doGetAuthenticationInfo(jwtToken);
+        }
+        long cached = (System.nanoTime() - start) / ITERATIONS;
+
+        log.info("token 认证{}次：改造前 {} ns/次（{} 次/秒），缓存命中 {} ns/次（{} 次/秒）",
+                ITERATIONS, uncached, 1000000000L / Math.max(uncached, 1), cached, 1000000000L / Math.max(cached, 1));
+        assertTrue("缓存命中的认证应快于完整校验", cached < uncached);
+    }
+
+    /**
+     * 改造前 doGetAuthenticationInfo 对每个请求所做的校验
+     */
+    private void authenticateUncached() throws Exception {
+        String encryptToken = FebsUtil.encryptToken(token);
+        assertEquals(encryptToken, redisService.get(FebsConstant.TOKEN_CACHE_PREFIX + encryptToken + "." + IP));
+        String username = JWTUtil.getUsername(token);
+        User user = userManager.getUser(username);
+        assertTrue(JWTUtil.verify(token, username, user.getPassword()));
+    }
+}
@@ -0,0 +1,158 @@
+package cc.mrbird.febs.common.handler;
+
+import cc.mrbird.febs.common.domain.ImportProgress;
+import cc.mrbird.febs.cos.entity.EnterpriseInfo;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.poi.excel.BigExcelWriter;
+import cn.hutool.poi.excel.ExcelReader;
+import cn.hutool.poi.excel.ExcelUtil;
+import com.google.common.collect.ImmutableMap;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 大文件导入基准：同一个 xlsx 分别用改造前的 DOM 读取（ExcelUtil.getReader(...).read(1, 2, ...)，
+ * 整个工作簿与全部数据同时驻留内存）、按输入流 SAX 读取、按文件 SAX 读取，
+ * 比较读取过程中常驻内存的峰值，并记录各方式每秒读取的行数。
+ * SAX 读取时每读取若干块数据强制 GC 后记录堆占用；按输入流读取时 POI 需把整个 zip 包解压进内存，
+ * 按文件读取只保留当前块。
+ * 耗时较长，需 -Dfebs.benchmark=true 开启，行数可用 -Dfebs.benchmark.rows 调整
+ */
+@Slf4j
+public class ChunkRowHandlerMemoryTest {
+
+    private static final int ROWS = Integer.getInteger("febs.benchmark.rows", 200000);
+
+    private static final int CHUNK_SIZE = 500;
+
+    /**
+     * 每处理多少块采样一次
+     */
+    private static final int SAMPLE_CHUNKS = 20;
+
+    private static final Map<String, String> HEADER_ALIAS = ImmutableMap.of(
+            "企业名称", "name",
+            "统一社会信用代码", "creditCode");
+
+    private static File file;
+
+    @BeforeClass
+    public static void createFile() throws Exception {
+        Assume.assumeTrue("需 -Dfebs.benchmark=true 开启", Boolean.getBoolean("febs.benchmark"));
+        file = File.createTempFile("import-benchmark-", ".xlsx");
+        BigExcelWriter writer = ExcelUtil.getBigWriter(file);
+        writer.writeRow(Collections.singletonList("企业信息"));
+        writer.writeRow(Arrays.asList("企业名称", "统一社会信用代码"));
+        for (int i = 0; i < ROWS; i++) {
+            writer.writeRow(Arrays.asList("测试企业" + i, String.format("91110000%010d", i)));
+        }
+        writer.close();
+        log.info("基准文件{}行，{}KB", ROWS, file.length() / 1024);
+    }
+
+    @AfterClass
+    public static void deleteFile() {
+        if (file != null) {
+            FileUtil.del(file);
+        }
+    }
+
+    @Test
+    public void fileReadRetainsLessThanStreamAndDomRead() throws Exception {
+        long domPeak = readByDom(true);
+        long streamPeak = readByStream(true);
+        long filePeak = readByFile(true);
+        log.info("常驻内存峰值：DOM 读取 {}MB，按输入流读取 {}MB，按文件读取 {}MB", domPeak >> 20, streamPeak >> 20, filePeak >> 20);
+        assertTrue("按文件读取的常驻内存应明显低于 DOM 读取", filePeak < domPeak / 2);
+        assertTrue("按文件读取的常驻内存应明显低于按输入流读取", filePeak < streamPeak / 2);
+    }
+
+    @Test
+    public void logRowsPerSecond() throws Exception {
+        log.info("读取速度：DOM 读取 {} 行/秒，按输入流读取 {} 行/秒，按文件读取 {} 行/秒",
+                rowsPerSecond(() -> readByDom(false)),
+                rowsPerSecond(() -> readByStream(false)),
+                rowsPerSecond(() -> readByFile(false)));
+    }
+
+    /**
+     * 改造前的读取方式，读取结束时工作簿与全部数据同时驻留内存
+     */
+    private long readByDom(boolean sample) throws Exception {
+        long baseline = sample ? usedAfterGc() : 0;
+        try (InputStream inputStream = Files.newInputStream(file.toPath());
+             ExcelReader excelReader = ExcelUtil.getReader(inputStream, 0)) {
+            HEADER_ALIAS.forEach(excelReader::addHeaderAlias);
+            List<EnterpriseInfo> rows = excelReader.read(1, 2, Integer.MAX_VALUE, EnterpriseInfo.class);
+            long peak = sample ? usedAfterGc() - baseline : 0;
+            assertEquals(ROWS, rows.size());
+            return peak;
+        }
+    }
+
+    private long readByStream(boolean sample) throws Exception {
+        try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+            return read(handler -> ExcelUtil.readBySax(inputStream, 0, handler), sample);
+        }
+    }
+
+    private long readByFile(boolean sample) throws Exception {
+        return read(handler -> ExcelUtil.readBySax(file, 0, handler), sample);
+    }
+
+    private long read(Reader reader, boolean sample) throws Exception {
+        long baseline = sample ? usedAfterGc() : 0;
+        long[] peak = {0};
+        int[] chunks = {0};
+        ImportProgress progress = new ImportProgress();
+        ChunkRowHandler<EnterpriseInfo> handler = new ChunkRowHandler<>(HEADER_ALIAS, EnterpriseInfo.class, CHUNK_SIZE, progress, (chunk, chunkProgress) -> {
+            if (sample && ++chunks[0] % SAMPLE_CHUNKS == 0) {
+                peak[0] = Math.max(peak[0], usedAfterGc() - baseline);
+            }
+        });
+        reader.read(handler);
+        handler.finish();
+        assertEquals(ROWS, progress.getRows().get());
+        return peak[0];
+    }
+
+    /**
+     * 不采样内存，单独计时
+     */
+    private long rowsPerSecond(Run run) throws Exception {
+        usedAfterGc();
+        long start = System.nanoTime();
+        run.run();
+        return ROWS * 1000000000L / (System.nanoTime() - start);
+    }
+
+    private static long usedAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @FunctionalInterface
+    private interface Reader {
+        void read(ChunkRowHandler<?> handler) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface Run {
+        long run() throws Exception;
+    }
+}
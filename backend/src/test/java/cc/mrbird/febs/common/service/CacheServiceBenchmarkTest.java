@@ -0,0 +1,189 @@
+package cc.mrbird.febs.common.service;
+
+import cc.mrbird.febs.TestEnvironment;
+import cc.mrbird.febs.system.dao.UserMapper;
+import cc.mrbird.febs.system.domain.Role;
+import cc.mrbird.febs.system.domain.User;
+import cc.mrbird.febs.system.domain.UserRole;
+import cc.mrbird.febs.system.manager.UserManager;
+import cc.mrbird.febs.system.service.RoleService;
+import cc.mrbird.febs.system.service.UserRoleService;
+import cc.mrbird.febs.system.service.UserService;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 用户缓存写入与读取基准：同一批用户分别按改造前的方式逐个写入（每个用户依次保存用户详情、角色、权限与个性化配置，
+ * 每条命令一次往返）与 CacheService 按批次集合查询后 pipeline 写入，记录每秒写入的用户数；
+ * 再通过 UserManager 逐个读回，校验与数据库一致并记录读取耗时的分位数。
+ * 需 -Dfebs.benchmark=true 开启，用户数可用 -Dfebs.benchmark.users 调整
+ */
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class CacheServiceBenchmarkTest {
+
+    private static final int USERS = Integer.getInteger("febs.benchmark.users", 10000);
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Autowired
+    private CacheService cacheService;
+    @Autowired
+    private UserManager userManager;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRoleService userRoleService;
+    @Autowired
+    private RoleService roleService;
+    @Autowired
+    private UserMapper userMapper;
+
+    private final String prefix = "cachebench" + System.nanoTime() + "_";
+
+    private List<User> users = Collections.emptyList();
+
+    private Role role;
+
+    @BeforeClass
+    public static void assumeEnvironment() {
+        Assume.assumeTrue("需 -Dfebs.benchmark=true 开启", Boolean.getBoolean("febs.benchmark"));
+        TestEnvironment.assumeAvailable();
+    }
+
+    @Before
+    public void setUp() {
+        role = roleService.getOne(Wrappers.<Role>lambdaQuery().last("LIMIT 1"));
+        Assume.assumeNotNull(role);
+        List<User> newUsers = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setUsername(prefix + i);
+            user.setPassword("-");
+            user.setEmail(prefix + i + "@febs.cc");
+            user.setStatus(User.STATUS_VALID);
+            user.setSsex(User.SEX_UNKNOW);
+            user.setAvatar(User.DEFAULT_AVATAR);
+            user.setCreateTime(new Date());
+            newUsers.add(user);
+        }
+        userService.saveBatch(newUsers, BATCH_SIZE);
+        users = newUsers;
+        userRoleService.saveBatch(users.stream().map(user -> {
+            UserRole userRole = new UserRole();
+            userRole.setUserId(user.getUserId());
+            userRole.setRoleId(role.getRoleId());
+            return userRole;
+        }).collect(Collectors.toList()), BATCH_SIZE);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (users.isEmpty()) {
+            return;
+        }
+        cacheService.deleteUserCaches(users);
+        List<Long> userIds = userIds();
+        for (int from = 0; from < userIds.size(); from += BATCH_SIZE) {
+            List<Long> chunk = userIds.subList(from, Math.min(from + BATCH_SIZE, userIds.size()));
+            userRoleService.remove(Wrappers.<UserRole>lambdaQuery().in(UserRole::getUserId, chunk));
+            userService.removeByIds(chunk);
+        }
+    }
+
+    @Test
+    public void pipelinedSaveRoundTripsThroughUserManager() throws Exception {
+        long start = System.nanoTime();
+        for (User user : users) {
+            saveOneByOne(user);
+        }
+        long oneByOne = USERS * 1000000000L / (System.nanoTime() - start);
+
+        cacheService.deleteUserCaches(users);
+        start = System.nanoTime();
+        cacheService.saveUserCaches(userIds());
+        long pipelined = USERS * 1000000000L / (System.nanoTime() - start);
+
+        long[] userLatencies = new long[USERS];
+        long[] roleLatencies = new long[USERS];
+        for (int i = 0; i < USERS; i++) {
+            String username = users.get(i).getUsername();
+            start = System.nanoTime();
+            User cached = userManager.getUser(username);
+            userLatencies[i] = System.nanoTime() - start;
+            assertUserEquals(userMapper.findDetail(username), cached);
+
+            start = System.nanoTime();
+            assertEquals(username, Collections.singleton(role.getRoleName()), userManager.getUserRoles(username));
+            roleLatencies[i] = System.nanoTime() - start;
+        }
+
+        log.info("缓存{}个用户：逐个写入 {} 个/秒，pipeline 写入 {} 个/秒", USERS, oneByOne, pipelined);
+        log.info("UserManager.getUser 读取耗时：{}", percentiles(userLatencies));
+        log.info("UserManager.getUserRoles 首次读取耗时：{}", percentiles(roleLatencies));
+        assertTrue("pipeline 写入应快于逐个写入", pipelined > oneByOne);
+    }
+
+    /**
+     * 改造前 loadUserRedisCache 对每个用户的处理
+     */
+    private void saveOneByOne(User user) throws Exception {
+        String username = user.getUsername();
+        cacheService.saveUser(username);
+        cacheService.saveRoles(username);
+        cacheService.savePermissions(username);
+        cacheService.saveUserConfigs(String.valueOf(user.getUserId()));
+    }
+
+    private List<Long> userIds() {
+        return users.stream().map(User::getUserId).collect(Collectors.toList());
+    }
+
+    /**
+     * 数据库读出的时间为 Timestamp，缓存反序列化后为 Date，逐个比较字段
+     */
+    private void assertUserEquals(User expected, User actual) {
+        String username = expected.getUsername();
+        assertEquals(username, expected.getUserId(), actual.getUserId());
+        assertEquals(username, username, actual.getUsername());
+        assertEquals(username, expected.getPassword(), actual.getPassword());
+        assertEquals(username, expected.getEmail(), actual.getEmail());
+        assertEquals(username, expected.getStatus(), actual.getStatus());
+        assertEquals(username, expected.getSsex(), actual.getSsex());
+        assertEquals(username, expected.getDeptId(), actual.getDeptId());
+        assertEquals(username, expected.getDeptName(), actual.getDeptName());
+        assertEquals(username, expected.getRoleId(), actual.getRoleId());
+        assertEquals(username, expected.getRoleName(), actual.getRoleName());
+        assertEquals(username, expected.getCreateTime().getTime(), actual.getCreateTime().getTime());
+    }
+
+    private static String percentiles(long[] latencies) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return String.format("平均 %d ns，p50 %d ns，p99 %d ns，最大 %d ns",
+                Arrays.stream(sorted).sum() / sorted.length,
+                sorted[sorted.length / 2],
+                sorted[Math.min(sorted.length - 1, (int) (sorted.length * 0.99))],
+                sorted[sorted.length - 1]);
+    }
+}
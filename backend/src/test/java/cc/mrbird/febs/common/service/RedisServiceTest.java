@@ -0,0 +1,64 @@
+package cc.mrbird.febs.common.service;
+
+import cc.mrbird.febs.TestEnvironment;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * SCAN 遍历与分批 pipeline 的集成测试，key 数量跨越多个批次与多个游标页
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class RedisServiceTest {
+
+    private static final String PREFIX = "febs.test.redis.";
+
+    private static final int KEYS = 2500;
+
+    @Autowired
+    private RedisService redisService;
+
+    @BeforeClass
+    public static void assumeEnvironment() {
+        TestEnvironment.assumeAvailable();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        redisService.delByPattern(PREFIX + "*");
+    }
+
+    @Test
+    public void pipelinedReturnsEveryReplyAcrossBatches() throws Exception {
+        List<Integer> items = IntStream.range(0, KEYS).boxed().collect(Collectors.toList());
+        List<Object> replies = redisService.pipelined(items, 300, (pipeline, i) -> pipeline.set(PREFIX + i, String.valueOf(i)));
+        assertEquals(KEYS, replies.size());
+        assertEquals(String.valueOf(KEYS - 1), redisService.get(PREFIX + (KEYS - 1)));
+    }
+
+    @Test
+    public void scanVisitsEveryKeyAndDelByPatternRemovesThem() throws Exception {
+        redisService.pipelined(IntStream.range(0, KEYS).boxed().collect(Collectors.toList()), 500,
+                (pipeline, i) -> pipeline.set(PREFIX + i, String.valueOf(i)));
+        Set<String> scanned = new HashSet<>();
+        redisService.scan(PREFIX + "*", 100, scanned::addAll);
+        assertEquals(KEYS, scanned.size());
+        assertEquals(KEYS, redisService.getKeys(PREFIX + "*").size());
+
+        assertEquals(KEYS, redisService.delByPattern(PREFIX + "*").longValue());
+        assertEquals(0, redisService.getKeys(PREFIX + "*").size());
+    }
+}
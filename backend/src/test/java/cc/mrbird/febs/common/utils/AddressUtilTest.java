@@ -0,0 +1,109 @@
+package cc.mrbird.febs.common.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assume;
+import org.junit.Test;
+import org.lionsoul.ip2region.DataBlock;
+import org.lionsoul.ip2region.DbConfig;
+import org.lionsoul.ip2region.DbSearcher;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * IP 归属地查询：结果须与改造前按文件 B 树查询一致。
+ * 基准测试比较改造前每次查询打开 ip2region.db 做 B 树查询、内存查询（缓存未命中）与缓存命中三种情况的平均耗时，
+ * 需 -Dfebs.benchmark=true 开启
+ */
+@Slf4j
+public class AddressUtilTest {
+
+    private static final String[] IPS = {"1.2.3.4", "8.8.8.8", "114.114.114.114", "202.96.134.133", "61.135.169.121", "127.0.0.1"};
+
+    @Test
+    public void invalidAddressReturnsEmpty() {
+        assertEquals("", AddressUtil.getCityInfo("not-an-ip"));
+    }
+
+    @Test
+    public void memorySearchMatchesFileSearch() throws Exception {
+        File db = copyDb();
+        try {
+            for (String ip : IPS) {
+                assertEquals(ip, searchByFile(db, ip), AddressUtil.getCityInfo(ip));
+            }
+        } finally {
+            Files.deleteIfExists(db.toPath());
+        }
+    }
+
+    @Test
+    public void benchmarkAgainstFileSearch() throws Exception {
+        Assume.assumeTrue("需 -Dfebs.benchmark=true 开启", Boolean.getBoolean("febs.benchmark"));
+        int iterations = Integer.getInteger("febs.benchmark.iterations", 100000);
+        File db = copyDb();
+        try {
+            // 改造前每次查询都打开文件，次数少一些
+            int fileIterations = Math.max(iterations / 50, 100);
+            long start = System.nanoTime();
+            for (int i = 0; i < fileIterations; i++) {
+                searchByFile(db, IPS[i % IPS.length]);
+            }
+            long fileSearch = (System.nanoTime() - start) / fileIterations;
+
+            // 各不相同的地址，超过缓存容量，基本都走内存查询
+            AddressUtil.getCityInfo("127.0.0.1");
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                AddressUtil.getCityInfo(ip(0x01000000 + i * 7919));
+            }
+            long memorySearch = (System.nanoTime() - start) / iterations;
+
+            for (String ip : IPS) {
+                AddressUtil.getCityInfo(ip);
+            }
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                AddressUtil.getCityInfo(IPS[i % IPS.length]);
+            }
+            long cached = (System.nanoTime() - start) / iterations;
+
+            log.info("IP 归属地查询：按文件 B 树查询 {} ns/次，内存查询 {} ns/次，缓存命中 {} ns/次", fileSearch, memorySearch, cached);
+            assertTrue("内存查询应快于按文件查询", memorySearch < fileSearch);
+            assertTrue("缓存命中应在 1 微秒以内", cached < 1000);
+        } finally {
+            Files.deleteIfExists(db.toPath());
+        }
+    }
+
+    /**
+     * 改造前 getCityInfo 的查询方式
+     */
+    private String searchByFile(File db, String ip) throws Exception {
+        DbSearcher searcher = new DbSearcher(new DbConfig(), db.getPath());
+        try {
+            DataBlock dataBlock = searcher.btreeSearch(ip);
+            return dataBlock == null ? "" : dataBlock.getRegion();
+        } finally {
+            searcher.close();
+        }
+    }
+
+    private File copyDb() throws Exception {
+        File db = File.createTempFile("ip2region-", ".db");
+        try (InputStream in = AddressUtilTest.class.getResourceAsStream("/ip2region/ip2region.db")) {
+            Files.copy(Objects.requireNonNull(in), db.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return db;
+    }
+
+    private static String ip(int n) {
+        return ((n >>> 24) & 0xff) + "." + ((n >>> 16) & 0xff) + "." + ((n >>> 8) & 0xff) + "." + (n & 0xff);
+    }
+}
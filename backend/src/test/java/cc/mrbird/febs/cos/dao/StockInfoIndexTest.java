@@ -0,0 +1,124 @@
+package cc.mrbird.febs.cos.dao;
+
+import cc.mrbird.febs.TestEnvironment;
+import cc.mrbird.febs.cos.entity.StockInfo;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.ibatis.binding.MapperMethod;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * sql/stock_info_create_date.sql 的执行计划检查：
+ * 由 MyBatis 按映射文件生成实际执行的语句并绑定参数后 EXPLAIN，
+ * stock_info 表的 possible_keys 须包含对应组合索引，数据量足够时 key 须为该索引。
+ * 数据很少时 MySQL 可能直接全表扫描，此时只检查 possible_keys
+ *
+ * @author FanK
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class StockInfoIndexTest {
+
+    /**
+     * 达到该行数后要求优化器实际选用索引
+     */
+    private static final long MIN_ROWS = 1000;
+
+    private static final String STOCK_INFO_MAPPER = StockInfoMapper.class.getName() + ".";
+
+    private static final String ROLLUP_MAPPER = StockDailyRollupMapper.class.getName() + ".";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    @BeforeClass
+    public static void assumeEnvironment() {
+        TestEnvironment.assumeAvailable();
+    }
+
+    @Test
+    public void stockListUsesIsInTypeDateIndex() {
+        MapperMethod.ParamMap<Object> parameter = pageParameter(new StockInfo().setTypeId(1));
+        assertIndex(STOCK_INFO_MAPPER + "stockInfoByPage", parameter, "idx_is_in_type_date");
+    }
+
+    @Test
+    public void detailDateRangeUsesIsInDateIndex() {
+        StockInfo stockInfo = new StockInfo().setIsIn(1);
+        stockInfo.setCreateTimeFrom("2024-01-01");
+        stockInfo.setCreateTimeTo("2024-01-31");
+        assertIndex(STOCK_INFO_MAPPER + "stockInfoDetailPage", pageParameter(stockInfo), "idx_is_in_date");
+    }
+
+    @Test
+    public void rollupRebuildDayUsesIsInDateIndex() {
+        MapperMethod.ParamMap<Object> parameter = new MapperMethod.ParamMap<>();
+        parameter.put("day", "2024-01-01");
+        assertIndex(ROLLUP_MAPPER + "rebuildDay", parameter, "idx_is_in_date");
+    }
+
+    @Test
+    public void stockByKeysUsesNameTypeIndex() {
+        MapperMethod.ParamMap<Object> parameter = new MapperMethod.ParamMap<>();
+        parameter.put("keys", Collections.singletonList(new StockInfo().setName("a4纸").setTypeId(1)));
+        assertIndex(STOCK_INFO_MAPPER + "selectStockByKeys", parameter, "idx_name_type_is_in");
+    }
+
+    private MapperMethod.ParamMap<Object> pageParameter(StockInfo stockInfo) {
+        MapperMethod.ParamMap<Object> parameter = new MapperMethod.ParamMap<>();
+        parameter.put("page", new Page<>(1, 10));
+        parameter.put("stockInfo", stockInfo);
+        parameter.put("nameIds", null);
+        parameter.put("modelIds", null);
+        return parameter;
+    }
+
+    /**
+     * 取映射语句生成的 SQL，按参数映射顺序取值后交给 JDBC 执行 EXPLAIN
+     */
+    private void assertIndex(String statement, Object parameter, String index) {
+        Configuration configuration = sqlSessionFactory.getConfiguration();
+        BoundSql boundSql = configuration.getMappedStatement(statement).getBoundSql(parameter);
+        MetaObject metaObject = configuration.newMetaObject(parameter);
+        Object[] args = boundSql.getParameterMappings().stream()
+                .map(mapping -> boundSql.hasAdditionalParameter(mapping.getProperty())
+                        ? boundSql.getAdditionalParameter(mapping.getProperty())
+                        : metaObject.getValue(mapping.getProperty()))
+                .toArray();
+        String sql = boundSql.getSql();
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList("EXPLAIN " + sql, args);
+        Map<String, Object> stockInfoPlan = plan.stream()
+                .filter(row -> "si".equals(row.get("table")))
+                .findFirst()
+                .orElse(null);
+        assertNotNull(statement + " 执行计划中没有 stock_info：" + plan, stockInfoPlan);
+        String possibleKeys = (String) stockInfoPlan.get("possible_keys");
+        assertTrue(statement + " 未能使用 " + index + "，possible_keys: " + possibleKeys + "\n" + sql,
+                StringUtils.contains(possibleKeys, index));
+        Long rows = jdbcTemplate.queryForObject("SELECT COUNT(1) FROM stock_info", Long.class);
+        if (rows != null && rows >= MIN_ROWS) {
+            assertEquals(statement, index, stockInfoPlan.get("key"));
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package cc.mrbird.febs.cos.manager;
+
+import cc.mrbird.febs.TestEnvironment;
+import cc.mrbird.febs.common.exception.FebsException;
+import cc.mrbird.febs.cos.dao.GoodsBelongMapper;
+import cc.mrbird.febs.cos.dao.StockDailyRollupMapper;
+import cc.mrbird.febs.cos.dao.StockInfoMapper;
+import cc.mrbird.febs.cos.dao.StockOutMapper;
+import cc.mrbird.febs.cos.entity.GoodsBelong;
+import cc.mrbird.febs.cos.entity.LedgerDocument;
+import cc.mrbird.febs.cos.entity.StockDailyRollup;
+import cc.mrbird.febs.cos.entity.StockInfo;
+import cc.mrbird.febs.cos.entity.StockOut;
+import cn.hutool.json.JSONUtil;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * 出库过账并发测试：多个线程同时对同一库房物品出库，库存不能扣成负数，
+ * 成功的单据数与库存数一致，其余单据整单回滚。
+ * 接口测试经 MockMvc 并发调用 /cos/stock-out/stockOut，按不同线程数记录每秒处理的出库请求数，
+ * 同名不同类型的库房物品不受影响
+ *
+ * @author FanK
+ */
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class InventoryLedgerTest {
+
+    /**
+     * 初始库存
+     */
+    private static final int STOCK = 50;
+
+    /**
+     * 出库单据数，每张出库 1 件
+     */
+    private static final int ATTEMPTS = 200;
+
+    private static final int THREADS = 16;
+
+    /**
+     * 接口测试的并发线程数
+     */
+    private static final int[] THREAD_COUNTS = {1, 4, 16};
+
+    @Autowired
+    private InventoryLedger inventoryLedger;
+    @Autowired
+    private StockInfoMapper stockInfoMapper;
+    @Autowired
+    private GoodsBelongMapper goodsBelongMapper;
+    @Autowired
+    private StockDailyRollupMapper stockDailyRollupMapper;
+    @Autowired
+    private StockOutMapper stockOutMapper;
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    private String name;
+
+    private Integer stockRowId;
+
+    @BeforeClass
+    public static void assumeEnvironment() {
+        TestEnvironment.assumeAvailable();
+    }
+
+    @Before
+    public void setUp() {
+        name = "出库并发测试-" + System.nanoTime();
+        StockInfo stockInfo = new StockInfo()
+                .setName(name)
+                .setTypeId(0)
+                .setType("-")
+                .setUnit("个")
+                .setAmount(STOCK)
+                .setPrice(BigDecimal.ONE)
+                .setIsIn(0)
+                .setCreateDate(new Date());
+        stockInfoMapper.insert(stockInfo);
+        stockRowId = stockInfo.getId();
+        // 同名不同类型的库房物品，出库时不能被扣减
+        stockInfoMapper.insert(new StockInfo()
+                .setName(name)
+                .setTypeId(1)
+                .setType("-")
+                .setUnit("个")
+                .setAmount(STOCK)
+                .setPrice(BigDecimal.ONE)
+                .setIsIn(0)
+                .setCreateDate(new Date()));
+    }
+
+    @After
+    public void tearDown() {
+        // 库房数据与出库记录同名，一并删除
+        stockInfoMapper.delete(Wrappers.<StockInfo>lambdaQuery().eq(StockInfo::getName, name));
+        goodsBelongMapper.delete(Wrappers.<GoodsBelong>lambdaQuery().eq(GoodsBelong::getName, name));
+        stockOutMapper.delete(Wrappers.<StockOut>lambdaQuery().eq(StockOut::getCustodian, name));
+        stockDailyRollupMapper.delete(Wrappers.<StockDailyRollup>lambdaQuery().eq(StockDailyRollup::getStockRowId, stockRowId));
+    }
+
+    @Test
+    public void concurrentPostOutNeverGoesNegative() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger posted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>(ATTEMPTS);
+        try {
+            for (int i = 0; i < ATTEMPTS; i++) {
+                LedgerDocument document = outDocument("OUT-TEST-" + i, 1);
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        inventoryLedger.post(document);
+                        posted.incrementAndGet();
+                    } catch (FebsException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(STOCK, posted.get());
+        assertEquals(ATTEMPTS - STOCK, rejected.get());
+        assertEquals(0, stockInfoMapper.selectById(stockRowId).getAmount().intValue());
+        // 回滚的单据不留出库记录
+        assertEquals(STOCK, stockInfoMapper.selectCount(Wrappers.<StockInfo>lambdaQuery()
+                .eq(StockInfo::getParentId, stockRowId)
+                .eq(StockInfo::getIsIn, 2)).intValue());
+    }
+
+    @Test
+    public void concurrentStockOutRequestsAreExact() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+        String goods = JSONUtil.toJsonStr(Collections.singletonList(outGoods(1)));
+        for (int threads : THREAD_COUNTS) {
+            stockInfoMapper.updateById(new StockInfo().setId(stockRowId).setAmount(STOCK));
+            int records = outRecords();
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicInteger posted = new AtomicInteger();
+            AtomicInteger rejected = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>(ATTEMPTS);
+            long elapsed;
+            try {
+                for (int i = 0; i < ATTEMPTS; i++) {
+                    futures.add(pool.submit(() -> {
+                        start.await();
+                        int status = mockMvc.perform(post("/cos/stock-out/stockOut")
+                                .param("userId", "1")
+                                .param("custodian", name)
+                                .param("goods", goods))
+                                .andReturn().getResponse().getStatus();
+                        (status == 200 ? posted : rejected).incrementAndGet();
+                        return null;
+                    }));
+                }
+                long begin = System.nanoTime();
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get(1, TimeUnit.MINUTES);
+                }
+                elapsed = System.nanoTime() - begin;
+            } finally {
+                pool.shutdownNow();
+            }
+            log.info("{}线程出库请求{}次，成功{}次，{} ops/s", threads, ATTEMPTS, posted.get(),
+                    String.format("%.1f", ATTEMPTS * 1e9 / elapsed));
+
+            assertEquals(STOCK, posted.get());
+            assertEquals(ATTEMPTS - STOCK, rejected.get());
+            assertEquals(0, stockInfoMapper.selectById(stockRowId).getAmount().intValue());
+            assertEquals(STOCK, outRecords() - records);
+        }
+        // 同名不同类型的库房物品未被扣减
+        assertEquals(STOCK, stockInfoMapper.selectOne(Wrappers.<StockInfo>lambdaQuery()
+                .eq(StockInfo::getName, name)
+                .eq(StockInfo::getTypeId, 1)
+                .eq(StockInfo::getIsIn, 0)).getAmount().intValue());
+    }
+
+    @Test(expected = FebsException.class)
+    public void postOutBeyondStockIsRejected() throws Exception {
+        try {
+            inventoryLedger.post(outDocument("OUT-TEST-SHORT", STOCK + 1));
+        } finally {
+            assertEquals(STOCK, stockInfoMapper.selectById(stockRowId).getAmount().intValue());
+        }
+    }
+
+    private int outRecords() {
+        return stockInfoMapper.selectCount(Wrappers.<StockInfo>lambdaQuery()
+                .eq(StockInfo::getParentId, stockRowId)
+                .eq(StockInfo::getIsIn, 2));
+    }
+
+    private GoodsBelong outGoods(int amount) {
+        return new GoodsBelong()
+                .setName(name)
+                .setTypeId(0)
+                .setType("-")
+                .setUnit("个")
+                .setAmount(amount)
+                .setPrice(BigDecimal.ONE);
+    }
+
+    private LedgerDocument outDocument(String num, int amount) {
+        return new LedgerDocument()
+                .setSource(LedgerDocument.OUT)
+                .setNum(num)
+                .setGoods(Collections.singletonList(outGoods(amount)));
+    }
+}
@@ -0,0 +1,194 @@
+package cc.mrbird.febs.cos.manager;
+
+import cc.mrbird.febs.TestEnvironment;
+import cc.mrbird.febs.cos.dao.GoodsBelongMapper;
+import cc.mrbird.febs.cos.dao.StockDailyRollupMapper;
+import cc.mrbird.febs.cos.dao.StockInfoMapper;
+import cc.mrbird.febs.cos.entity.GoodsBelong;
+import cc.mrbird.febs.cos.entity.LedgerDocument;
+import cc.mrbird.febs.cos.entity.StockDailyRollup;
+import cc.mrbird.febs.cos.entity.StockInfo;
+import cn.hutool.core.date.DateUtil;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 入库过账吞吐基准：同样的入库单分别按改造前的逐行方式（每条明细查询库房数据后单独更新或新增，
+ * 再逐条写入入库记录与所属信息）与 InventoryLedger 批量过账，记录每秒过账的明细条数。
+ * 每张单据一半明细对应已有库房物品、一半为新物品，两种方式的最终库存须一致。
+ * 需 -Dfebs.benchmark=true 开启，单据明细数可用 -Dfebs.benchmark.lines 调整
+ *
+ * @author FanK
+ */
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class StockPutBenchmarkTest {
+
+    private static final int LINES = Integer.getInteger("febs.benchmark.lines", 200);
+
+    /**
+     * 每种方式过账的单据数
+     */
+    private static final int ROUNDS = 10;
+
+    @Autowired
+    private InventoryLedger inventoryLedger;
+    @Autowired
+    private StockInfoMapper stockInfoMapper;
+    @Autowired
+    private GoodsBelongMapper goodsBelongMapper;
+    @Autowired
+    private StockDailyRollupMapper stockDailyRollupMapper;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final String prefix = "入库基准-" + System.nanoTime() + "-";
+
+    @BeforeClass
+    public static void assumeEnvironment() {
+        Assume.assumeTrue("需 -Dfebs.benchmark=true 开启", Boolean.getBoolean("febs.benchmark"));
+        TestEnvironment.assumeAvailable();
+    }
+
+    @After
+    public void tearDown() {
+        List<Integer> stockRowIds = stockInfoMapper.selectList(Wrappers.<StockInfo>lambdaQuery()
+                .select(StockInfo::getId)
+                .likeRight(StockInfo::getName, prefix)
+                .eq(StockInfo::getIsIn, 0)).stream().map(StockInfo::getId).collect(Collectors.toList());
+        if (!stockRowIds.isEmpty()) {
+            stockDailyRollupMapper.delete(Wrappers.<StockDailyRollup>lambdaQuery().in(StockDailyRollup::getStockRowId, stockRowIds));
+        }
+        stockInfoMapper.delete(Wrappers.<StockInfo>lambdaQuery().likeRight(StockInfo::getName, prefix));
+        goodsBelongMapper.delete(Wrappers.<GoodsBelong>lambdaQuery().likeRight(GoodsBelong::getName, prefix));
+    }
+
+    @Test
+    public void batchPostingOutpacesPerRowLoop() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        String perRowPrefix = prefix + "逐行-";
+        String batchPrefix = prefix + "批量-";
+        insertExisting(perRowPrefix);
+        insertExisting(batchPrefix);
+
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            List<GoodsBelong> goods = goods(perRowPrefix);
+            String num = "PUT-BENCH-" + round;
+            transactionTemplate.execute(status -> {
+                goods.forEach(item -> postPerRow(num, item));
+                return null;
+            });
+        }
+        long perRow = LINES * ROUNDS * 1000000000L / (System.nanoTime() - start);
+
+        start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            inventoryLedger.post(new LedgerDocument()
+                    .setSource(LedgerDocument.PUT)
+                    .setNum("PUT-BENCH-" + round)
+                    .setGoods(goods(batchPrefix)));
+        }
+        long batch = LINES * ROUNDS * 1000000000L / (System.nanoTime() - start);
+
+        log.info("入库过账{}张单据，每张{}条明细：逐行 {} 条/秒，批量 {} 条/秒", ROUNDS, LINES, perRow, batch);
+        assertStock(perRowPrefix);
+        assertStock(batchPrefix);
+        assertTrue("批量过账应快于逐行过账", batch > perRow);
+    }
+
+    /**
+     * 改造前 stockPut 对每条明细的处理
+     */
+    private void postPerRow(String num, GoodsBelong item) {
+        Date now = new Date();
+        StockInfo stockInfo = stockInfoMapper.selectOne(Wrappers.<StockInfo>lambdaQuery()
+                .eq(StockInfo::getName, item.getName())
+                .eq(StockInfo::getTypeId, item.getTypeId())
+                .eq(StockInfo::getIsIn, 0));
+        if (stockInfo != null) {
+            stockInfoMapper.updateById(new StockInfo().setId(stockInfo.getId()).setAmount(stockInfo.getAmount() + item.getAmount()));
+        } else {
+            stockInfo = stock(item.getName()).setAmount(item.getAmount()).setCreateDate(now);
+            stockInfoMapper.insert(stockInfo);
+        }
+        stockInfoMapper.insert(stock(item.getName())
+                .setAmount(item.getAmount())
+                .setParentId(stockInfo.getId())
+                .setIsIn(1)
+                .setCreateDate(now));
+        goodsBelongMapper.insert(new GoodsBelong()
+                .setNum(num)
+                .setName(item.getName())
+                .setTypeId(item.getTypeId())
+                .setType(item.getType())
+                .setUnit(item.getUnit())
+                .setAmount(item.getAmount())
+                .setPrice(item.getPrice())
+                .setCreateDate(DateUtil.formatDateTime(now)));
+    }
+
+    /**
+     * 前一半物品预先建好库房数据
+     */
+    private void insertExisting(String namePrefix) {
+        for (int i = 0; i < LINES / 2; i++) {
+            stockInfoMapper.insert(stock(namePrefix + i).setAmount(0).setCreateDate(new Date()));
+        }
+    }
+
+    private List<GoodsBelong> goods(String namePrefix) {
+        List<GoodsBelong> goods = new ArrayList<>(LINES);
+        for (int i = 0; i < LINES; i++) {
+            goods.add(new GoodsBelong()
+                    .setName(namePrefix + i)
+                    .setTypeId(0)
+                    .setType("-")
+                    .setUnit("个")
+                    .setAmount(1)
+                    .setPrice(BigDecimal.ONE));
+        }
+        return goods;
+    }
+
+    private StockInfo stock(String name) {
+        return new StockInfo()
+                .setName(name)
+                .setTypeId(0)
+                .setType("-")
+                .setUnit("个")
+                .setPrice(BigDecimal.ONE)
+                .setIsIn(0);
+    }
+
+    private void assertStock(String namePrefix) {
+        List<StockInfo> stockList = stockInfoMapper.selectList(Wrappers.<StockInfo>lambdaQuery()
+                .likeRight(StockInfo::getName, namePrefix)
+                .eq(StockInfo::getIsIn, 0));
+        assertEquals(LINES, stockList.size());
+        stockList.forEach(stockInfo -> assertEquals(stockInfo.getName(), ROUNDS, stockInfo.getAmount().intValue()));
+        assertEquals(LINES * ROUNDS, stockInfoMapper.selectCount(Wrappers.<StockInfo>lambdaQuery()
+                .likeRight(StockInfo::getName, namePrefix)
+                .eq(StockInfo::getIsIn, 1)).intValue());
+    }
+}